@@ -13,8 +13,13 @@
  */
 package org.gecko.util.common.concurrent;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -54,4 +59,67 @@ public class ExecutorHelper {
 		return executorService.isTerminated();
 	}
 
+	/**
+	 * Returns, if the running JVM supports virtual threads, which is the case for Java 21 and newer
+	 * @return <code>true</code>, if virtual threads are available
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return VirtualThreads.NEW_EXECUTOR != null;
+	}
+	
+	/**
+	 * Creates an {@link ExecutorService}, that runs every task on a new virtual thread. The threads are named 
+	 * with the given name and a counter. The executor is looked up reflectively, so the code still runs on Java 11. 
+	 * @param name the name of the threads
+	 * @return the executor or <code>null</code>, if the JVM does not support virtual threads
+	 */
+	public static ExecutorService newVirtualThreadExecutor(String name) {
+		if (!isVirtualThreadSupported()) {
+			return null;
+		}
+		try {
+			Object builder = VirtualThreads.OF_VIRTUAL.invoke(null);
+			builder = VirtualThreads.NAME.invoke(builder, name + "-", 0L);
+			ThreadFactory factory = (ThreadFactory) VirtualThreads.FACTORY.invoke(builder);
+			return (ExecutorService) VirtualThreads.NEW_EXECUTOR.invoke(null, factory);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			logger.log(Level.WARNING, "Could not create a virtual thread executor", e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Holds the reflective entry points to the virtual threads of Java 21. 
+	 * The lookup happens once, when the class is first used.
+	 */
+	private static class VirtualThreads {
+		
+		static final Method OF_VIRTUAL;
+		static final Method NAME;
+		static final Method FACTORY;
+		static final Method NEW_EXECUTOR;
+		
+		static {
+			Method ofVirtual = null;
+			Method name = null;
+			Method factory = null;
+			Method newExecutor = null;
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				ofVirtual = Thread.class.getMethod("ofVirtual");
+				name = builderClass.getMethod("name", String.class, long.class);
+				factory = builderClass.getMethod("factory");
+				newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			} catch (ClassNotFoundException | NoSuchMethodException e) {
+				// virtual threads are not supported by this JVM
+				newExecutor = null;
+			}
+			OF_VIRTUAL = ofVirtual;
+			NAME = name;
+			FACTORY = factory;
+			NEW_EXECUTOR = newExecutor;
+		}
+		
+	}
+
 }
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gecko.util.pool.Pool;
+import org.gecko.util.pool.PoolEngine;
+import org.gecko.util.pool.ReleaseMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the poll and release cycle of a {@link Pool}. The throughput mode reports the cycles per microsecond, 
+ * the sample time mode the latency distribution including the p99. 
+ * The contention is controlled by the number of benchmark threads in relation to the pool size. 
+ * The cost of the release is simulated by a validation on return and a release consumer, that burn CPU. 
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark {
+	
+	private static final long POLL_TIMEOUT_MILLIS = 10000;
+	
+	@Param({"4", "16", "64"})
+	public int poolSize;
+	
+	@Param({"DEQUE", "STRIPED"})
+	public String engine;
+	
+	@Param({"ASYNC", "INLINE"})
+	public String releaseMode;
+	
+	/** CPU tokens burned on each release of an instance */
+	@Param({"0", "1000"})
+	public long releaseCost;
+	
+	/** CPU tokens burned, while the instance is borrowed */
+	@Param({"50"})
+	public long holdCost;
+	
+	private Pool<Object> pool;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		pool = new Pool<Object>("benchmark", Object::new, o -> Blackhole.consumeCPU(releaseCost), poolSize, POLL_TIMEOUT_MILLIS, PoolEngine.valueOf(engine));
+		pool.setReleaseMode(ReleaseMode.valueOf(releaseMode));
+		if (releaseCost > 0) {
+			pool.setValidator(o -> {
+				Blackhole.consumeCPU(releaseCost);
+				return true;
+			});
+			pool.setValidateOnReturn(true);
+		}
+		pool.initialize();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.dispose();
+	}
+	
+	@Benchmark
+	public Object pollRelease() {
+		Object instance = pool.poll();
+		try {
+			Blackhole.consumeCPU(holdCost);
+			return instance;
+		} finally {
+			pool.release(instance);
+		}
+	}
+
+}
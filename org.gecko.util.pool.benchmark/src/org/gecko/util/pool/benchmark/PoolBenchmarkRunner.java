@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool.benchmark;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link PoolBenchmark} once for each configured number of threads and writes all results into one JSON file. 
+ * The thread counts are given by the system property <code>pool.benchmark.threads</code> as comma separated list, 
+ * the result file by <code>pool.benchmark.result</code>. The arguments are passed to JMH as command line options.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class PoolBenchmarkRunner {
+	
+	private static final String DEFAULT_THREADS = "1,2,4,8,16,32,64";
+	private static final String DEFAULT_RESULT = "build/reports/jmh/pool-benchmark.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, FileNotFoundException, UnsupportedEncodingException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		int[] threads = Arrays.stream(System.getProperty("pool.benchmark.threads", DEFAULT_THREADS).split(","))
+				.map(String::trim)
+				.filter(s -> !s.isEmpty())
+				.mapToInt(Integer::parseInt)
+				.toArray();
+		List<RunResult> results = new ArrayList<RunResult>();
+		for (int threadCount : threads) {
+			ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine).threads(threadCount);
+			if (commandLine.getIncludes().isEmpty()) {
+				options.include(PoolBenchmark.class.getSimpleName());
+			}
+			results.addAll(new Runner(options.build()).run());
+		}
+		File resultFile = new File(System.getProperty("pool.benchmark.result", DEFAULT_RESULT));
+		if (resultFile.getParentFile() != null) {
+			resultFile.getParentFile().mkdirs();
+		}
+		try (PrintStream out = new PrintStream(resultFile, "UTF-8")) {
+			ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+		}
+	}
+
+}
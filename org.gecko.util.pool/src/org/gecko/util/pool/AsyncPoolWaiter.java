@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.Future;
+
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+
+/**
+ * {@link PoolWaiter} that resolves a {@link Promise} instead of parking a thread.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class AsyncPoolWaiter<T> extends PoolWaiter<PooledEntry<T>> {
+	
+	private final Deferred<T> deferred;
+	private final Pool<T> pool;
+	private final long startNanos;
+	private volatile Future<?> timeout;
+	
+	/**
+	 * Creates a new instance.
+	 * @param deferred the deferred to resolve
+	 * @param pool the pool, that records the borrow
+	 * @param startNanos the start of the poll in nanoseconds
+	 * @param priority the priority of the poll
+	 * @param deadlineNanos the deadline of the poll in nanoseconds
+	 * @param rankNanos the time in nanoseconds, waiters of the same priority are ordered by
+	 */
+	AsyncPoolWaiter(Deferred<T> deferred, Pool<T> pool, long startNanos, PollPriority priority, long deadlineNanos, long rankNanos) {
+		super(null, priority, deadlineNanos, rankNanos);
+		this.deferred = deferred;
+		this.pool = pool;
+		this.startNanos = startNanos;
+	}
+	
+	/**
+	 * Returns the promise of this waiter
+	 * @return the promise
+	 */
+	Promise<T> getPromise() {
+		return deferred.getPromise();
+	}
+	
+	/**
+	 * Sets the scheduled timeout of this waiter, so it can be cancelled when the waiter gets its instance
+	 * @param timeout the scheduled timeout
+	 */
+	void setTimeout(Future<?> timeout) {
+		this.timeout = timeout;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolWaiter#onComplete(java.lang.Object)
+	 */
+	@Override
+	protected void onComplete(PooledEntry<T> entry) {
+		cancelTimeout();
+		pool.borrowed(entry, startNanos);
+		deferred.resolve(entry.getInstance());
+	}
+	
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolWaiter#onAbort(java.lang.RuntimeException)
+	 */
+	@Override
+	protected void onAbort(RuntimeException reason) {
+		cancelTimeout();
+		deferred.fail(reason);
+	}
+	
+	private void cancelTimeout() {
+		Future<?> current = timeout;
+		if (current != null) {
+			current.cancel(false);
+		}
+	}
+
+}
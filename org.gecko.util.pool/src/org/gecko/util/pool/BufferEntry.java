@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A buffer of a {@link BufferPool}, that is reused for every acquire of its size class, while each acquire 
+ * gets its own {@link PooledBuffer}. The state holds the generation of the entry in the upper and the 
+ * reference count in the lower 32 bits. The last release moves the entry to the next generation, 
+ * so a stale {@link PooledBuffer} of an earlier acquire can't change the reference count of the next owner.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class BufferEntry {
+	
+	private final ByteBuffer buffer;
+	private final int sizeClass;
+	private final AtomicLong state = new AtomicLong();
+	
+	/**
+	 * Creates a new instance.
+	 * @param buffer the underlying buffer
+	 * @param sizeClass the index of the size class or <code>-1</code> for a buffer, that is not pooled
+	 */
+	BufferEntry(ByteBuffer buffer, int sizeClass) {
+		this.buffer = buffer;
+		this.sizeClass = sizeClass;
+	}
+	
+	/**
+	 * Opens the entry for a new acquire with one reference. Only the pool calls this, while it owns the entry exclusively.
+	 * @param size the requested size, that becomes the limit of the buffer
+	 * @return the generation of this acquire
+	 */
+	int open(int size) {
+		buffer.clear().limit(size);
+		long current = state.get();
+		state.set(current | 1);
+		return generation(current);
+	}
+	
+	/**
+	 * Returns the underlying buffer
+	 * @return the underlying buffer
+	 */
+	ByteBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Returns the index of the size class in the pool
+	 * @return the size class or <code>-1</code>, if the buffer is not pooled
+	 */
+	int getSizeClass() {
+		return sizeClass;
+	}
+	
+	/**
+	 * Returns the reference count of the given generation
+	 * @param generation the generation of the acquire
+	 * @return the reference count or <code>0</code>, if the generation is over
+	 */
+	int refCount(int generation) {
+		long current = state.get();
+		return generation(current) == generation ? (int) current : 0;
+	}
+	
+	/**
+	 * Adds a reference for the given generation
+	 * @param generation the generation of the acquire
+	 * @return <code>true</code>, if the generation still had references
+	 */
+	boolean retain(int generation) {
+		long current;
+		do {
+			current = state.get();
+			if (generation(current) != generation || (int) current <= 0) {
+				return false;
+			}
+		} while (!state.compareAndSet(current, current + 1));
+		return true;
+	}
+	
+	/**
+	 * Releases a reference of the given generation. The last release moves the entry to the next generation.
+	 * @param generation the generation of the acquire
+	 * @return the remaining number of references or <code>-1</code>, if the generation had no references anymore
+	 */
+	int release(int generation) {
+		long current;
+		int count;
+		long next;
+		do {
+			current = state.get();
+			count = (int) current;
+			if (generation(current) != generation || count <= 0) {
+				return -1;
+			}
+			next = count == 1 ? (long) (generation + 1) << 32 : current - 1;
+		} while (!state.compareAndSet(current, next));
+		return count - 1;
+	}
+	
+	private static int generation(long state) {
+		return (int) (state >>> 32);
+	}
+
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.gecko.util.pool.exception.PoolException;
+
+/**
+ * Pool for {@link ByteBuffer}s of variable size. Buffers are grouped in size classes, that are powers of two 
+ * between a minimum and a maximum capacity. A request is served by the smallest size class, that fits. 
+ * Requests larger than the maximum capacity get a buffer, that is not pooled.
+ * <p>
+ * Released buffers are first kept in a small cache of the releasing thread and then in a shared queue per size class. 
+ * The pool keeps a limited number of buffers per size class, the buffers in the caches of the threads included. 
+ * Buffers beyond that limit are left to the garbage collector. Only heap buffers up to {@link #THREAD_CACHE_MAX_CAPACITY} 
+ * are cached per thread, so a thread holds a few hundred kilobytes at most. Larger and direct buffers always go to 
+ * the shared queues, so the off-heap memory held by the pool stays bound by its limits and is not stuck in the caches 
+ * of terminated threads.
+ * The pool either hands out direct (off-heap) or heap buffers. The array of a heap buffer can be used 
+ * where <code>byte[]</code> is needed.
+ * <p>
+ * Buffers are reference counted, see {@link PooledBuffer}.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class BufferPool {
+	
+	/** The default number of buffers kept in the shared queue of each size class */
+	public static final int DEFAULT_MAX_POOLED = 64;
+	
+	/** The default number of heap buffers kept in the cache of each thread per size class */
+	public static final int DEFAULT_THREAD_CACHE_SIZE = 4;
+	
+	/** The capacity of the largest size class, whose heap buffers are kept in the caches of the threads */
+	public static final int THREAD_CACHE_MAX_CAPACITY = 32 * 1024;
+	
+	private final String name;
+	private final boolean direct;
+	private final int minShift;
+	private final int maxCapacity;
+	private final int maxPooled;
+	private final int threadCacheSize;
+	private final int threadCacheClasses;
+	private final List<Queue<BufferEntry>> queues;
+	private final AtomicInteger[] pooled;
+	private final ThreadLocal<BufferThreadCache> threadCache = new ThreadLocal<BufferThreadCache>();
+	private final LongAdder allocations = new LongAdder();
+	private final LongAdder reuses = new LongAdder();
+	private final LongAdder unpooled = new LongAdder();
+	private volatile int generation = 0;
+	private volatile boolean disposed = false;
+	
+	/**
+	 * Creates a new instance with the default limits.
+	 * @param name the name of the pool
+	 * @param direct <code>true</code> for direct (off-heap) buffers, <code>false</code> for heap buffers
+	 * @param minCapacity the capacity of the smallest size class, is rounded up to the next power of two
+	 * @param maxCapacity the capacity of the largest size class, is rounded up to the next power of two
+	 */
+	public BufferPool(String name, boolean direct, int minCapacity, int maxCapacity) {
+		this(name, direct, minCapacity, maxCapacity, DEFAULT_MAX_POOLED, DEFAULT_THREAD_CACHE_SIZE);
+	}
+	
+	/**
+	 * Creates a new instance.
+	 * @param name the name of the pool
+	 * @param direct <code>true</code> for direct (off-heap) buffers, <code>false</code> for heap buffers
+	 * @param minCapacity the capacity of the smallest size class, is rounded up to the next power of two
+	 * @param maxCapacity the capacity of the largest size class, is rounded up to the next power of two
+	 * @param maxPooled the number of buffers kept for each size class, in the shared queue and the caches of the threads
+	 * @param threadCacheSize the number of heap buffers kept in the cache of each thread per size class, <code>0</code> disables the cache
+	 */
+	public BufferPool(String name, boolean direct, int minCapacity, int maxCapacity, int maxPooled, int threadCacheSize) {
+		if (minCapacity <= 0 || maxCapacity < minCapacity || maxCapacity > 1 << 30) {
+			throw new IllegalArgumentException("BufferPool[" + name + "] needs a capacity range between 1 and 2^30, but was " + minCapacity + " to " + maxCapacity);
+		}
+		if (maxPooled < 0 || threadCacheSize < 0) {
+			throw new IllegalArgumentException("BufferPool[" + name + "] does not allow negative limits");
+		}
+		this.name = name;
+		this.direct = direct;
+		this.minShift = shift(minCapacity);
+		int maxShift = shift(maxCapacity);
+		this.maxCapacity = 1 << maxShift;
+		this.maxPooled = maxPooled;
+		int sizeClasses = maxShift - minShift + 1;
+		this.threadCacheClasses = Math.max(0, Math.min(sizeClasses, shift(THREAD_CACHE_MAX_CAPACITY) - minShift + 1));
+		this.threadCacheSize = direct || threadCacheClasses == 0 ? 0 : threadCacheSize;
+		this.queues = new ArrayList<Queue<BufferEntry>>(sizeClasses);
+		this.pooled = new AtomicInteger[sizeClasses];
+		for (int i = 0; i < sizeClasses; i++) {
+			queues.add(new ConcurrentLinkedQueue<BufferEntry>());
+			pooled[i] = new AtomicInteger();
+		}
+	}
+	
+	/**
+	 * Returns the name of the pool
+	 * @return the name of the pool
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the pool hands out direct (off-heap) buffers
+	 * @return <code>true</code> for direct buffers
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+	
+	/**
+	 * Returns the capacity of the smallest size class
+	 * @return the capacity of the smallest size class
+	 */
+	public int getMinCapacity() {
+		return 1 << minShift;
+	}
+	
+	/**
+	 * Returns the capacity of the largest size class
+	 * @return the capacity of the largest size class
+	 */
+	public int getMaxCapacity() {
+		return maxCapacity;
+	}
+	
+	/**
+	 * Acquires a buffer for at least the given number of bytes. The position of the buffer is <code>0</code> 
+	 * and its limit is the requested size. The capacity is the one of the size class and can be larger.
+	 * @param size the number of bytes needed
+	 * @return the buffer with one reference
+	 * @throws PoolException if the pool is disposed
+	 */
+	public PooledBuffer acquire(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("BufferPool[" + name + "] cannot provide a buffer of negative size " + size);
+		}
+		if (disposed) {
+			throw new PoolException("BufferPool[" + name + "] is already disposed");
+		}
+		if (size > maxCapacity) {
+			unpooled.increment();
+			return new PooledBuffer(this, new BufferEntry(allocate(size), -1), size);
+		}
+		int sizeClass = sizeClass(size);
+		BufferEntry buffer = null;
+		BufferThreadCache cache = getThreadCache();
+		if (cache != null) {
+			buffer = cache.poll(sizeClass);
+		}
+		if (buffer == null) {
+			buffer = queues.get(sizeClass).poll();
+		}
+		if (buffer != null) {
+			pooled[sizeClass].decrementAndGet();
+		}
+		if (buffer == null) {
+			allocations.increment();
+			buffer = new BufferEntry(allocate(1 << (sizeClass + minShift)), sizeClass);
+		} else {
+			reuses.increment();
+		}
+		return new PooledBuffer(this, buffer, size);
+	}
+	
+	/**
+	 * Acquires a buffer and copies the given bytes into it. The buffer is ready to be read afterwards.
+	 * @param bytes the bytes to copy
+	 * @return the buffer with one reference
+	 * @throws PoolException if the pool is disposed
+	 */
+	public PooledBuffer wrap(byte[] bytes) {
+		PooledBuffer buffer = acquire(bytes.length);
+		buffer.buffer().put(bytes).flip();
+		return buffer;
+	}
+	
+	/**
+	 * Returns the number of buffers, that were allocated for a size class
+	 * @return the number of allocations
+	 */
+	public long getAllocationCount() {
+		return allocations.sum();
+	}
+	
+	/**
+	 * Returns the number of acquires, that were served by a pooled buffer
+	 * @return the number of reused buffers
+	 */
+	public long getReuseCount() {
+		return reuses.sum();
+	}
+	
+	/**
+	 * Returns the number of acquires, that were too large to be pooled
+	 * @return the number of unpooled buffers
+	 */
+	public long getUnpooledCount() {
+		return unpooled.sum();
+	}
+	
+	/**
+	 * Returns the number of pooled buffers in the shared queues and the caches of the threads
+	 * @return the number of pooled buffers
+	 */
+	public int getPooledCount() {
+		int count = 0;
+		for (AtomicInteger p : pooled) {
+			count += p.get();
+		}
+		return count;
+	}
+	
+	/**
+	 * Drops all pooled buffers. Buffers released afterwards are left to the garbage collector. 
+	 * The caches of other threads are dropped, as soon as these threads use the pool again or terminate.
+	 */
+	public void dispose() {
+		disposed = true;
+		generation++;
+		threadCache.remove();
+		for (int i = 0; i < queues.size(); i++) {
+			queues.get(i).clear();
+			// the caches of the threads belong to the former generation and are dropped as well
+			pooled[i].set(0);
+		}
+	}
+	
+	/**
+	 * Takes a buffer back, after its last reference was released
+	 * @param buffer the released buffer
+	 */
+	void recycle(BufferEntry buffer) {
+		int sizeClass = buffer.getSizeClass();
+		if (sizeClass < 0 || disposed) {
+			return;
+		}
+		AtomicInteger count = pooled[sizeClass];
+		if (count.incrementAndGet() > maxPooled) {
+			count.decrementAndGet();
+			return;
+		}
+		BufferThreadCache cache = getThreadCache();
+		if (cache != null && cache.offer(buffer)) {
+			return;
+		}
+		queues.get(sizeClass).offer(buffer);
+	}
+	
+	/**
+	 * Returns the cache of the current thread for the current generation of the pool
+	 * @return the cache or <code>null</code>, if thread caches are disabled
+	 */
+	private BufferThreadCache getThreadCache() {
+		if (threadCacheSize == 0) {
+			return null;
+		}
+		int current = generation;
+		BufferThreadCache cache = threadCache.get();
+		if (cache == null || cache.getGeneration() != current) {
+			cache = new BufferThreadCache(current, threadCacheClasses, threadCacheSize);
+			threadCache.set(cache);
+		}
+		return cache;
+	}
+	
+	/**
+	 * Returns the index of the smallest size class, that fits the given size
+	 * @param size the requested size
+	 * @return the index of the size class
+	 */
+	private int sizeClass(int size) {
+		return Math.max(0, shift(size) - minShift);
+	}
+	
+	private ByteBuffer allocate(int capacity) {
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+	
+	/**
+	 * Returns the exponent of the next power of two, that is equal or larger than the given value
+	 * @param value the value
+	 * @return the exponent
+	 */
+	private static int shift(int value) {
+		return value <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(value - 1);
+	}
+
+}
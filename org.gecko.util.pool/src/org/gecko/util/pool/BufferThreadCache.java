@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * Cache of a thread for the heap buffers it released to a {@link BufferPool}. It is only used by its owning thread, 
+ * so the hot acquire and release path does not touch the shared queues of the pool. 
+ * It only holds the small size classes. The cache belongs to one generation of the pool and is dropped, 
+ * if the pool was disposed in the meantime.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class BufferThreadCache {
+	
+	private final int generation;
+	private final BufferEntry[][] slots;
+	private final int[] counts;
+	
+	/**
+	 * Creates a new instance.
+	 * @param generation the generation of the pool
+	 * @param sizeClasses the number of the smallest size classes, that are cached
+	 * @param capacity the number of buffers cached per size class
+	 */
+	BufferThreadCache(int generation, int sizeClasses, int capacity) {
+		this.generation = generation;
+		this.slots = new BufferEntry[sizeClasses][capacity];
+		this.counts = new int[sizeClasses];
+	}
+	
+	/**
+	 * Returns the generation of the pool, the cache belongs to
+	 * @return the generation
+	 */
+	int getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Puts a buffer into the cache
+	 * @param buffer the buffer to cache
+	 * @return <code>true</code>, if the cache had room for the buffer
+	 */
+	boolean offer(BufferEntry buffer) {
+		int sizeClass = buffer.getSizeClass();
+		if (sizeClass >= slots.length) {
+			return false;
+		}
+		BufferEntry[] slot = slots[sizeClass];
+		int count = counts[sizeClass];
+		if (count == slot.length) {
+			return false;
+		}
+		slot[count] = buffer;
+		counts[sizeClass] = count + 1;
+		return true;
+	}
+	
+	/**
+	 * Takes the buffer, that was cached last for the size class
+	 * @param sizeClass the index of the size class
+	 * @return the cached buffer or <code>null</code>
+	 */
+	BufferEntry poll(int sizeClass) {
+		if (sizeClass >= slots.length) {
+			return null;
+		}
+		int count = counts[sizeClass];
+		if (count == 0) {
+			return null;
+		}
+		BufferEntry[] slot = slots[sizeClass];
+		BufferEntry buffer = slot[--count];
+		slot[count] = null;
+		counts[sizeClass] = count;
+		return buffer;
+	}
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker around the creation of pooled instances. After a number of consecutive failures, the circuit opens 
+ * and no instance is created until the backoff has passed. Then a single probe is let through. If the probe succeeds, 
+ * the circuit closes again, otherwise it opens with a doubled backoff, up to the maximum.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class CircuitBreaker {
+	
+	static final int CLOSED = 0;
+	static final int OPEN = 1;
+	static final int HALF_OPEN = 2;
+	
+	private final int failureThreshold;
+	private final long initialBackoffNanos;
+	private final long maxBackoffNanos;
+	private final LongSupplier clock;
+	private final AtomicInteger state = new AtomicInteger(CLOSED);
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile long backoffNanos;
+	private volatile long openUntilNanos;
+	
+	/**
+	 * Creates a new instance.
+	 * @param failureThreshold the number of consecutive failures, that open the circuit
+	 * @param initialBackoffMillis the time the circuit stays open after the first failures
+	 * @param maxBackoffMillis the maximum time the circuit stays open
+	 * @param clock the clock of the pool in nanoseconds
+	 */
+	CircuitBreaker(int failureThreshold, long initialBackoffMillis, long maxBackoffMillis, LongSupplier clock) {
+		this.clock = clock;
+		this.failureThreshold = failureThreshold;
+		this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoffMillis);
+		this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(initialBackoffMillis, maxBackoffMillis));
+		this.backoffNanos = initialBackoffNanos;
+	}
+	
+	/**
+	 * Asks for the permission to create an instance. If the backoff of the open circuit has passed, 
+	 * the first caller gets the permission as probe.
+	 * @return <code>true</code>, if an instance may be created
+	 */
+	boolean allowCreation() {
+		int current = state.get();
+		if (current == CLOSED) {
+			return true;
+		}
+		return current == OPEN && clock.getAsLong() - openUntilNanos >= 0 && state.compareAndSet(OPEN, HALF_OPEN);
+	}
+	
+	/**
+	 * Returns, if instances can't be created at the moment
+	 * @return <code>true</code>, if the circuit is open and its backoff has not passed or a probe is running
+	 */
+	boolean isOpen() {
+		int current = state.get();
+		return current == HALF_OPEN || (current == OPEN && clock.getAsLong() - openUntilNanos < 0);
+	}
+	
+	/**
+	 * Records a successful creation and closes the circuit
+	 * @return <code>true</code>, if the success closed the circuit
+	 */
+	boolean onSuccess() {
+		failures.set(0);
+		if (state.get() != CLOSED) {
+			backoffNanos = initialBackoffNanos;
+			state.set(CLOSED);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Records a failed creation
+	 * @return <code>true</code>, if the failure opened the circuit
+	 */
+	boolean onFailure() {
+		if (state.compareAndSet(HALF_OPEN, OPEN)) {
+			// the probe failed, so we wait longer
+			backoffNanos = Math.min(maxBackoffNanos, backoffNanos * 2);
+			openUntilNanos = clock.getAsLong() + backoffNanos;
+			return true;
+		}
+		if (failures.incrementAndGet() >= failureThreshold) {
+			openUntilNanos = clock.getAsLong() + backoffNanos;
+			if (state.compareAndSet(CLOSED, OPEN)) {
+				failures.set(0);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the current state
+	 * @return the state
+	 */
+	int getState() {
+		return state.get();
+	}
+
+}
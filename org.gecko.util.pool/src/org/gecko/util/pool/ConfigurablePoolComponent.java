@@ -13,14 +13,32 @@
  */
 package org.gecko.util.pool;
 
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
 import java.util.Dictionary;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.gecko.util.common.concurrent.ExecutorHelper;
+import org.gecko.util.common.concurrent.NamedThreadFactory;
 import org.osgi.annotation.bundle.Capability;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
@@ -39,30 +57,91 @@ public class ConfigurablePoolComponent<T> {
 	
 	private static final Logger logger = Logger.getLogger(ConfigurablePoolComponent.class.getName());
 	
-	private BundleContext ctx;
-	private PoolConfiguration config;
+	private volatile BundleContext ctx;
+	private volatile PoolConfiguration config;
+	private volatile ExecutorService disposeExecutor;
+	private volatile ScheduledExecutorService scheduledExecutor;
 	
 	private static final int DEFAULT_POOL_SIZE = 5;
 	private static final int DEFAULT_POOL_TIMEOUT = 100;
 	public static final String DEFAULT_REF_FILTER = "(pool.name=*)";
+	private static final long DISPOSE_SHUTDOWN_MILLIS = 5000;
 	
-	private final Map<String, Pool<T>> poolMap = new HashMap<String, Pool<T>>();
+	private final ConcurrentMap<String, Pool<T>> poolMap = new ConcurrentHashMap<String, Pool<T>>();
 	
 	private final ConcurrentMap<ComponentServiceObjects<T>, Map<String, Object>> componentServiceObj = new ConcurrentHashMap<ComponentServiceObjects<T>, Map<String,Object>>();
 	
-	private final Map<String, ServiceRegistration<?>> serviceRegistrationMap  = new HashMap<String, ServiceRegistration<?>>();
+	private final ConcurrentMap<Pool<T>, ServiceRegistration<?>> serviceRegistrationMap  = new ConcurrentHashMap<Pool<T>, ServiceRegistration<?>>();
+	
+	private final ConcurrentMap<Pool<T>, ObjectName> mbeanNameMap = new ConcurrentHashMap<Pool<T>, ObjectName>();
+	
+	// guards the pool map together with the MBeans, so a pool never unregisters the MBean of its successor
+	private final ReentrantLock poolLock = new ReentrantLock();
+	
+	private static final Set<String> CONFIGURABLE_PROPERTIES = Set.of(
+			ConfigurablePoolConstants.POOL_AS_SERVICE,
+			ConfigurablePoolConstants.POOL_SIZE,
+			ConfigurablePoolConstants.POOL_TIMEOUT,
+			ConfigurablePoolConstants.POOL_ENGINE,
+			ConfigurablePoolConstants.POOL_RELEASE_MODE,
+			ConfigurablePoolConstants.POOL_MIN,
+			ConfigurablePoolConstants.POOL_MAX,
+			ConfigurablePoolConstants.POOL_IDLE_TIMEOUT,
+			ConfigurablePoolConstants.POOL_WARM_UP_THREADS,
+			ConfigurablePoolConstants.POOL_THREAD_CACHE,
+			ConfigurablePoolConstants.POOL_MAX_LEASE,
+			ConfigurablePoolConstants.POOL_LEAK_SAMPLE_RATE,
+			ConfigurablePoolConstants.POOL_INITIALIZATION,
+			ConfigurablePoolConstants.POOL_SELECTION,
+			ConfigurablePoolConstants.POOL_MAX_USES,
+			ConfigurablePoolConstants.POOL_MAX_AGE,
+			ConfigurablePoolConstants.POOL_VIRTUAL_THREADS,
+			ConfigurablePoolConstants.POOL_BREAKER_THRESHOLD,
+			ConfigurablePoolConstants.POOL_BREAKER_BACKOFF,
+			ConfigurablePoolConstants.POOL_BREAKER_MAX_BACKOFF,
+			ConfigurablePoolConstants.POOL_NAME);
+	
+	private static final Set<String> LIVE_PROPERTIES = Set.of(
+			ConfigurablePoolConstants.POOL_SIZE,
+			ConfigurablePoolConstants.POOL_TIMEOUT,
+			ConfigurablePoolConstants.POOL_MAX);
 	
 	public @interface PoolConfiguration {
 		String pool_componentName() default "";
 		boolean pool_asService() default true;
 		int pool_size() default DEFAULT_POOL_SIZE;
 		int pool_timeout() default DEFAULT_POOL_TIMEOUT;
+		String pool_engine() default "DEQUE";
+		String pool_releaseMode() default "ASYNC";
+		int pool_min() default 0;
+		int pool_max() default 0;
+		long pool_idleTimeout() default 0;
+		int pool_warmUpThreads() default 0;
+		boolean pool_threadCache() default false;
+		long pool_maxLease() default 0;
+		int pool_leakSampleRate() default 0;
+		String pool_initialization() default "EAGER";
+		String pool_selection() default "FIFO";
+		int pool_maxUses() default 0;
+		long pool_maxAge() default 0;
+		boolean pool_virtualThreads() default false;
+		int pool_breakerThreshold() default 0;
+		long pool_breakerBackoff() default 1000;
+		long pool_breakerMaxBackoff() default 60000;
 	}
 
 	
 	public void activate(BundleContext ctx, PoolConfiguration config) throws ConfigurationException {
 		this.ctx = ctx;
 		if(isConfigOK(config)) {
+			String disposeName = "ConfigurablePool-" + config.pool_componentName() + "-dispose";
+			ExecutorService executor = config.pool_virtualThreads() ? ExecutorHelper.newVirtualThreadExecutor(disposeName) : null;
+			this.disposeExecutor = executor != null ? executor : Executors.newCachedThreadPool(NamedThreadFactory.newNamedFactory(disposeName));
+			// one scheduler for the timeouts and the maintenance of all pools of this component
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, NamedThreadFactory.newNamedFactory("ConfigurablePool-" + config.pool_componentName() + "-scheduler"));
+			scheduler.setRemoveOnCancelPolicy(true);
+			scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			this.scheduledExecutor = scheduler;
 			this.config = config;
 		}	
 		registerServiceObjects();
@@ -70,30 +149,127 @@ public class ConfigurablePoolComponent<T> {
 	
 	
 	private void registerServiceObjects() {
-		synchronized (componentServiceObj) {
-			for(ComponentServiceObjects<T> serviceObj : componentServiceObj.keySet()) {
-				registerPool(serviceObj, componentServiceObj.get(serviceObj));
-			}		
-		}
+		componentServiceObj.forEach(this::registerPool);
 	}
 
+	/**
+	 * Removes all pools. The pools are disposed in the background, 
+	 * the deactivation waits a limited time for them to finish.
+	 */
 	public void deactivate() {
-		poolMap.forEach((k, v) -> v.dispose());
-		poolMap.clear();
+		poolMap.forEach(this::removePool);
+		ExecutorService executor = disposeExecutor;
+		disposeExecutor = null;
+		ExecutorHelper.shutdownExecutorServiceWithAwait(executor, DISPOSE_SHUTDOWN_MILLIS);
+		// the pools are disposed, before their scheduler goes away
+		ScheduledExecutorService scheduler = scheduledExecutor;
+		scheduledExecutor = null;
+		ExecutorHelper.shutdownExecutorServiceWithAwait(scheduler, DISPOSE_SHUTDOWN_MILLIS);
+	}
+	
+	/**
+	 * Applies a changed configuration. Changes of the size and the timeout are applied to the existing pools, 
+	 * without recreating their instances. Pools, whose other properties change, are replaced by new ones.
+	 * @param config the new configuration
+	 * @throws ConfigurationException if the configuration is invalid
+	 */
+	public void modified(PoolConfiguration config) throws ConfigurationException {
+		isConfigOK(config);
+		PoolConfiguration former = this.config;
+		this.config = config;
+		if (former == null) {
+			registerServiceObjects();
+			return;
+		}
+		componentServiceObj.forEach((serviceObj, properties) -> {
+			Dictionary<String, Object> formerProperties = createCombinedProperties(properties, former);
+			Dictionary<String, Object> combinedProperties = createCombinedProperties(properties, config);
+			String combinedId = (String) formerProperties.get(ConfigurablePoolConstants.POOL_COMBINED_ID);
+			Pool<T> pool = poolMap.get(combinedId);
+			if (pool != null && canModify(formerProperties, combinedProperties)) {
+				modifyPool(pool, combinedProperties);
+			} else {
+				if (pool != null) {
+					removePool(combinedId, pool);
+				}
+				registerPool(serviceObj, properties);
+			}
+		});
+	}
+	
+	/**
+	 * Checks, if the pool can be changed in place, which is the case if only the size or the timeout changed
+	 * @param formerProperties the combined properties of the former configuration
+	 * @param combinedProperties the combined properties of the new configuration
+	 * @return <code>true</code>, if the pool can be modified without recreating it
+	 */
+	private boolean canModify(Dictionary<String, Object> formerProperties, Dictionary<String, Object> combinedProperties) {
+		Set<String> keys = new HashSet<String>(Collections.list(formerProperties.keys()));
+		keys.addAll(Collections.list(combinedProperties.keys()));
+		for (String key : keys) {
+			if (!LIVE_PROPERTIES.contains(key) && !Objects.equals(formerProperties.get(key), combinedProperties.get(key))) {
+				return false;
+			}
+		}
+		// a maximum makes the pool elastic, which can't be changed in place
+		return getInt(formerProperties, ConfigurablePoolConstants.POOL_MAX, 0) > 0 == getInt(combinedProperties, ConfigurablePoolConstants.POOL_MAX, 0) > 0;
+	}
+	
+	/**
+	 * Applies the size and the timeout to an existing pool. A growing pool is filled in the background, 
+	 * a shrinking pool disposes its surplus instances, when they become idle.
+	 * @param pool the pool to modify
+	 * @param combinedProperties the new combined properties
+	 */
+	private void modifyPool(Pool<T> pool, Dictionary<String, Object> combinedProperties) {
+		pool.setPollTimeout(getLong(combinedProperties, ConfigurablePoolConstants.POOL_TIMEOUT, DEFAULT_POOL_TIMEOUT));
+		int poolMax = getInt(combinedProperties, ConfigurablePoolConstants.POOL_MAX, 0);
+		int poolSize = poolMax > 0 ? poolMax : getInt(combinedProperties, ConfigurablePoolConstants.POOL_SIZE, DEFAULT_POOL_SIZE);
+		if (poolSize != pool.getPoolSize()) {
+			logger.fine("Resizing Pool " + pool.getName() + " to " + poolSize);
+			pool.resize(poolSize);
+		}
+		ServiceRegistration<?> registration = serviceRegistrationMap.get(pool);
+		if (registration != null) {
+			try {
+				registration.setProperties(combinedProperties);
+			} catch (IllegalStateException e) {
+				logger.fine("The service of Pool " + pool.getName() + " was already unregistered");
+			}
+		}
 	}
 	
 	public void registerPool(ComponentServiceObjects<T> serviceObj, Map<String, Object> properties) {		
+		componentServiceObj.put(serviceObj, properties);
 		if(this.config != null) {
 			logger.fine("Registering pool immediately");
 			Dictionary<String, Object> combinedProperties = createCombinedProperties(properties);		
+			String combinedId = (String) combinedProperties.get(ConfigurablePoolConstants.POOL_COMBINED_ID);
 			Pool<T> pool = createPool(serviceObj, combinedProperties);
 			if((boolean) combinedProperties.get(ConfigurablePoolConstants.POOL_AS_SERVICE)) {
 				ServiceRegistration<?> registration = this.ctx.registerService(pool.getClass().getName(), pool, combinedProperties);
-				serviceRegistrationMap.put((String) combinedProperties.get(ConfigurablePoolConstants.POOL_COMBINED_ID), registration);
+				serviceRegistrationMap.put(pool, registration);
 			}		
-			poolMap.put((String) combinedProperties.get(ConfigurablePoolConstants.POOL_COMBINED_ID), pool);
+			// a pool registered again with the same id replaces the former one
+			Pool<T> former;
+			poolLock.lock();
+			try {
+				former = poolMap.put(combinedId, pool);
+				if (former != null) {
+					unregisterMBean(former);
+				}
+				registerMBean(combinedId, pool);
+			} finally {
+				poolLock.unlock();
+			}
+			if (former != null) {
+				disposePool(former);
+			}
+			// the service objects may have been unbound, while the pool was created
+			if (componentServiceObj.get(serviceObj) != properties) {
+				removePool(combinedId, pool);
+			}
 		}		
-		componentServiceObj.put(serviceObj, properties);
 	}	
 	
 	
@@ -101,21 +277,69 @@ public class ConfigurablePoolComponent<T> {
 
 	public void unregisterPool(ComponentServiceObjects<T> serviceObj) {
 		Map<String, Object> properties = componentServiceObj.remove(serviceObj);
-		if (properties != null) {
+		if (properties != null && this.config != null) {
 			Dictionary<String, Object> combinedProperties = createCombinedProperties(properties);	
 			String combinedId = (String) combinedProperties.get(ConfigurablePoolConstants.POOL_COMBINED_ID);
 			logger.fine("Removing tranformator " + combinedId);
-			if((boolean) combinedProperties.get(ConfigurablePoolConstants.POOL_AS_SERVICE)) {
-				ServiceRegistration<?> registration = serviceRegistrationMap.remove(combinedId);
-				if(registration != null) {
-					registration.unregister();
-				}
-			}
 			Pool<T> pool = poolMap.get(combinedId);
-			if(pool != null) {
+			if (pool != null) {
+				removePool(combinedId, pool);
+			}
+		}
+	}
+	
+	/**
+	 * Removes the pool, if it is still registered with the given id. 
+	 * Its service and MBean are unregistered immediately, the instances are disposed in the background.
+	 * @param combinedId the combined id of the pool
+	 * @param pool the pool to remove
+	 */
+	private void removePool(String combinedId, Pool<T> pool) {
+		boolean removed;
+		poolLock.lock();
+		try {
+			removed = poolMap.remove(combinedId, pool);
+			if (removed) {
+				unregisterMBean(pool);
+			}
+		} finally {
+			poolLock.unlock();
+		}
+		if (removed) {
+			disposePool(pool);
+		}
+	}
+	
+	/**
+	 * Unregisters the service of the pool and disposes the pool on the dispose executor, 
+	 * so that neither the DS threads nor other pools have to wait for the instances to be released
+	 * @param pool the pool to dispose
+	 */
+	private void disposePool(Pool<T> pool) {
+		ServiceRegistration<?> registration = serviceRegistrationMap.remove(pool);
+		if (registration != null) {
+			try {
+				registration.unregister();
+			} catch (IllegalStateException e) {
+				logger.fine("The service of Pool " + pool.getName() + " was already unregistered");
+			}
+		}
+		Runnable disposeTask = () -> {
+			try {
 				pool.dispose();
-				poolMap.remove(combinedId);
-			}				
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Could not dispose Pool " + pool.getName(), e);
+			}
+		};
+		ExecutorService executor = disposeExecutor;
+		if (executor == null) {
+			disposeTask.run();
+			return;
+		}
+		try {
+			executor.execute(disposeTask);
+		} catch (RejectedExecutionException e) {
+			disposeTask.run();
 		}
 	}
 	
@@ -124,7 +348,28 @@ public class ConfigurablePoolComponent<T> {
 		String poolName = (String) properties.get(ConfigurablePoolConstants.POOL_NAME);
 		int poolSize = (int) properties.get(ConfigurablePoolConstants.POOL_SIZE);
 		int poolTimeout = (int) properties.get(ConfigurablePoolConstants.POOL_TIMEOUT);
-		Pool<T> pool = new Pool<T>(poolName, serviceObj::getService, serviceObj::ungetService, poolSize, poolTimeout);
+		int poolMax = getInt(properties, ConfigurablePoolConstants.POOL_MAX, 0);
+		PoolEngine poolEngine = getEnum(properties, ConfigurablePoolConstants.POOL_ENGINE, PoolEngine.class, PoolEngine.DEQUE);
+		Pool<T> pool = new Pool<T>(poolName, serviceObj::getService, serviceObj::ungetService, poolMax > 0 ? poolMax : poolSize, poolTimeout, poolEngine);
+		pool.setScheduledExecutor(scheduledExecutor);
+		pool.setReleaseMode(getEnum(properties, ConfigurablePoolConstants.POOL_RELEASE_MODE, ReleaseMode.class, ReleaseMode.ASYNC));
+		// a maximum makes the pool elastic
+		if (poolMax > 0) {
+			pool.setMinIdle(Math.max(0, getInt(properties, ConfigurablePoolConstants.POOL_MIN, 0)));
+			pool.setIdleTimeout(getLong(properties, ConfigurablePoolConstants.POOL_IDLE_TIMEOUT, 0));
+		}
+		pool.setWarmUpThreads(getInt(properties, ConfigurablePoolConstants.POOL_WARM_UP_THREADS, 0));
+		pool.setThreadCacheEnabled(Boolean.parseBoolean(String.valueOf(properties.get(ConfigurablePoolConstants.POOL_THREAD_CACHE))));
+		pool.setMaxLeaseDuration(getLong(properties, ConfigurablePoolConstants.POOL_MAX_LEASE, 0));
+		pool.setLeakSampleRate(getInt(properties, ConfigurablePoolConstants.POOL_LEAK_SAMPLE_RATE, 0));
+		pool.setInitialization(getEnum(properties, ConfigurablePoolConstants.POOL_INITIALIZATION, PoolInitialization.class, PoolInitialization.EAGER));
+		pool.setSelectionStrategy(getEnum(properties, ConfigurablePoolConstants.POOL_SELECTION, SelectionStrategy.class, SelectionStrategy.FIFO));
+		pool.setMaxUses(getInt(properties, ConfigurablePoolConstants.POOL_MAX_USES, 0));
+		pool.setMaxAge(getLong(properties, ConfigurablePoolConstants.POOL_MAX_AGE, 0));
+		pool.setVirtualThreads(Boolean.parseBoolean(String.valueOf(properties.get(ConfigurablePoolConstants.POOL_VIRTUAL_THREADS))));
+		pool.setCircuitBreaker(getInt(properties, ConfigurablePoolConstants.POOL_BREAKER_THRESHOLD, 0), 
+				getLong(properties, ConfigurablePoolConstants.POOL_BREAKER_BACKOFF, 1000), 
+				getLong(properties, ConfigurablePoolConstants.POOL_BREAKER_MAX_BACKOFF, 60000));
 		pool.initialize();	
 		return pool;
 	}
@@ -138,36 +383,61 @@ public class ConfigurablePoolComponent<T> {
 	 * @return
 	 */
 	private Dictionary<String, Object> createCombinedProperties(Map<String, Object> properties) {
+		return createCombinedProperties(properties, this.config);
+	}
+	
+	/**
+	 * Combines the service properties with the given configuration
+	 * @param properties the service properties
+	 * @param config the configuration, that provides the defaults
+	 * @return the combined properties
+	 */
+	private Dictionary<String, Object> createCombinedProperties(Map<String, Object> properties, PoolConfiguration config) {
 		
 		Dictionary<String, Object> combinedProperties = new Hashtable<String, Object>();
 		
 		combinedProperties.put(ConfigurablePoolConstants.POOL_AS_SERVICE, 
 				properties.get(ConfigurablePoolConstants.POOL_AS_SERVICE) != null ? 
 						properties.get(ConfigurablePoolConstants.POOL_AS_SERVICE) :
-							this.config.pool_asService());
+							config.pool_asService());
 		
 		combinedProperties.put(ConfigurablePoolConstants.POOL_SIZE, 
 				properties.get(ConfigurablePoolConstants.POOL_SIZE) != null ? 
 						properties.get(ConfigurablePoolConstants.POOL_SIZE) :
-							this.config.pool_size());
+							config.pool_size());
 		
 		combinedProperties.put(ConfigurablePoolConstants.POOL_TIMEOUT, 
 				properties.get(ConfigurablePoolConstants.POOL_TIMEOUT) != null ? 
 						properties.get(ConfigurablePoolConstants.POOL_TIMEOUT) :
-							this.config.pool_timeout());
+							config.pool_timeout());
+		
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_ENGINE, config.pool_engine());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_RELEASE_MODE, config.pool_releaseMode());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_MIN, config.pool_min());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_MAX, config.pool_max());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_IDLE_TIMEOUT, config.pool_idleTimeout());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_WARM_UP_THREADS, config.pool_warmUpThreads());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_THREAD_CACHE, config.pool_threadCache());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_MAX_LEASE, config.pool_maxLease());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_LEAK_SAMPLE_RATE, config.pool_leakSampleRate());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_INITIALIZATION, config.pool_initialization());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_SELECTION, config.pool_selection());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_MAX_USES, config.pool_maxUses());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_MAX_AGE, config.pool_maxAge());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_VIRTUAL_THREADS, config.pool_virtualThreads());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_BREAKER_THRESHOLD, config.pool_breakerThreshold());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_BREAKER_BACKOFF, config.pool_breakerBackoff());
+		putCombinedProperty(combinedProperties, properties, ConfigurablePoolConstants.POOL_BREAKER_MAX_BACKOFF, config.pool_breakerMaxBackoff());
 		
-		combinedProperties.put(ConfigurablePoolConstants.POOL_COMPONENT_NAME, this.config.pool_componentName());
+		combinedProperties.put(ConfigurablePoolConstants.POOL_COMPONENT_NAME, config.pool_componentName());
 		
 		combinedProperties.put(ConfigurablePoolConstants.POOL_NAME, properties.get(ConfigurablePoolConstants.POOL_NAME));
 		
 		combinedProperties.put(ConfigurablePoolConstants.POOL_COMBINED_ID, 
-				createCombinedId((String) properties.get(ConfigurablePoolConstants.POOL_NAME)));				
+				createCombinedId((String) properties.get(ConfigurablePoolConstants.POOL_NAME), config));				
 		
 		for(String prop : properties.keySet()) {
-			if(!ConfigurablePoolConstants.POOL_AS_SERVICE.equals(prop) &&
-					!ConfigurablePoolConstants.POOL_SIZE.equals(prop) &&
-					!ConfigurablePoolConstants.POOL_TIMEOUT.equals(prop) && 
-					!ConfigurablePoolConstants.POOL_NAME.equals(prop)) {
+			if(!CONFIGURABLE_PROPERTIES.contains(prop)) {
 				combinedProperties.put(prop, properties.get(prop));
 			}
 		}	
@@ -176,6 +446,108 @@ public class ConfigurablePoolComponent<T> {
 		return combinedProperties;
 	}
 	
+	/**
+	 * Puts the value of the service property or the configured default, if the service does not define the property
+	 * @param combinedProperties the combined properties
+	 * @param properties the service properties
+	 * @param key the property key
+	 * @param defaultValue the configured default, can be <code>null</code>
+	 */
+	private void putCombinedProperty(Dictionary<String, Object> combinedProperties, Map<String, Object> properties, String key, Object defaultValue) {
+		Object value = properties.get(key) != null ? properties.get(key) : defaultValue;
+		if (value != null) {
+			combinedProperties.put(key, value instanceof Enum ? value.toString() : value);
+		}
+	}
+	
+	/**
+	 * Returns the enum constant of a property. The property can be the constant itself or its name, ignoring the case.
+	 * @param properties the properties
+	 * @param key the key of the property
+	 * @param type the type of the enum
+	 * @param defaultValue the constant, if the property is not set or blank
+	 * @return the enum constant
+	 * @throws IllegalArgumentException if there is no constant with the given name
+	 */
+	static <E extends Enum<E>> E getEnum(Dictionary<String, Object> properties, String key, Class<E> type, E defaultValue) {
+		Object value = properties.get(key);
+		if (type.isInstance(value)) {
+			return type.cast(value);
+		}
+		String name = value == null ? null : value.toString().trim();
+		if (name == null || name.isEmpty()) {
+			return defaultValue;
+		}
+		for (E constant : type.getEnumConstants()) {
+			if (constant.name().equalsIgnoreCase(name)) {
+				return constant;
+			}
+		}
+		throw new IllegalArgumentException("There is no " + type.getSimpleName() + " with the name " + name + " for the property " + key);
+	}
+	
+	private int getInt(Dictionary<String, Object> properties, String key, int defaultValue) {
+		Object value = properties.get(key);
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		}
+		return value == null ? defaultValue : Integer.parseInt(value.toString().trim());
+	}
+	
+	private long getLong(Dictionary<String, Object> properties, String key, long defaultValue) {
+		Object value = properties.get(key);
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+	}
+	
+	/**
+	 * Creates the JMX name of the pool with the given combined id
+	 * @param combinedId the combined id of the pool
+	 * @return the object name
+	 * @throws JMException if the name is not valid
+	 */
+	static ObjectName createObjectName(String combinedId) throws JMException {
+		return new ObjectName(ConfigurablePoolConstants.POOL_MBEAN_DOMAIN + ":type=Pool,name=" + ObjectName.quote(combinedId));
+	}
+	
+	/**
+	 * Registers the {@link PoolMetricsMBean} of the pool at the platform {@link MBeanServer}. 
+	 * An MBean, that someone else registered with the same name, is left alone and the pool stays without MBean. 
+	 * Must be called while holding the pool lock.
+	 * @param combinedId the combined id of the pool
+	 * @param pool the pool
+	 */
+	private void registerMBean(String combinedId, Pool<T> pool) {
+		try {
+			ObjectName objectName = createObjectName(combinedId);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(pool.getMBean(), objectName);
+			mbeanNameMap.put(pool, objectName);
+		} catch (InstanceAlreadyExistsException e) {
+			logger.warning("Could not register the MBean of Pool " + combinedId + ", because another MBean is registered with the same name");
+		} catch (JMException e) {
+			logger.log(Level.WARNING, "Could not register the MBean of Pool " + combinedId, e);
+		}
+	}
+	
+	/**
+	 * Removes the {@link PoolMetricsMBean} of the pool from the platform {@link MBeanServer}, if the pool registered one. 
+	 * Must be called while holding the pool lock.
+	 * @param pool the pool
+	 */
+	private void unregisterMBean(Pool<T> pool) {
+		ObjectName objectName = mbeanNameMap.remove(pool);
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			logger.log(Level.WARNING, "Could not unregister the MBean of Pool " + pool.getName(), e);
+		}
+	}
+	
 	private boolean isConfigOK(PoolConfiguration config) throws ConfigurationException {
 		if("".equals(config.pool_componentName())) {
 			throw new ConfigurationException("pool.componentName", "Cannot activate ConfigurablePoolComponent with no pool.componentName property");
@@ -183,7 +555,7 @@ public class ConfigurablePoolComponent<T> {
 		return true;
 	}
 	
-	private String createCombinedId(String poolName) {
-		return this.config.pool_componentName()+"-"+poolName;
+	private String createCombinedId(String poolName, PoolConfiguration config) {
+		return config.pool_componentName()+"-"+poolName;
 	}
 }
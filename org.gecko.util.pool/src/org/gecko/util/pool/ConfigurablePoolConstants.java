@@ -31,5 +31,41 @@ public interface ConfigurablePoolConstants {
 	static final String POOL_AS_SERVICE = "pool.asService";
 	
 	static final String POOL_COMBINED_ID = "pool.combinedId";
+	
+	static final String POOL_ENGINE = "pool.engine";
+	
+	static final String POOL_RELEASE_MODE = "pool.releaseMode";
+	
+	static final String POOL_MIN = "pool.min";
+	
+	static final String POOL_MAX = "pool.max";
+	
+	static final String POOL_IDLE_TIMEOUT = "pool.idleTimeout";
+	
+	static final String POOL_WARM_UP_THREADS = "pool.warmUpThreads";
+	
+	static final String POOL_THREAD_CACHE = "pool.threadCache";
+	
+	static final String POOL_MAX_LEASE = "pool.maxLease";
+	
+	static final String POOL_LEAK_SAMPLE_RATE = "pool.leakSampleRate";
+	
+	static final String POOL_INITIALIZATION = "pool.initialization";
+	
+	static final String POOL_SELECTION = "pool.selection";
+	
+	static final String POOL_MAX_USES = "pool.maxUses";
+	
+	static final String POOL_MAX_AGE = "pool.maxAge";
+	
+	static final String POOL_VIRTUAL_THREADS = "pool.virtualThreads";
+	
+	static final String POOL_BREAKER_THRESHOLD = "pool.breakerThreshold";
+	
+	static final String POOL_BREAKER_BACKOFF = "pool.breakerBackoff";
+	
+	static final String POOL_BREAKER_MAX_BACKOFF = "pool.breakerMaxBackoff";
+	
+	static final String POOL_MBEAN_DOMAIN = "org.gecko.util.pool";
 
 }
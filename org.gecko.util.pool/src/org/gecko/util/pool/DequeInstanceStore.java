@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * {@link InstanceStore} backed by a single deque. Instances are handed out in FIFO or LIFO order.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class DequeInstanceStore<E> implements InstanceStore<E> {
+	
+	private final LinkedBlockingDeque<E> available = new LinkedBlockingDeque<E>();
+	private final boolean lifo;
+	
+	/**
+	 * Creates a new FIFO store.
+	 */
+	DequeInstanceStore() {
+		this(false);
+	}
+	
+	/**
+	 * Creates a new instance.
+	 * @param lifo <code>true</code> to hand out the instance, that was offered last, first
+	 */
+	DequeInstanceStore(boolean lifo) {
+		this.lifo = lifo;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#offer(java.lang.Object)
+	 */
+	@Override
+	public void offer(E element) {
+		available.offer(element);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#poll()
+	 */
+	@Override
+	public E poll() {
+		return lifo ? available.pollLast() : available.pollFirst();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(E element) {
+		return available.removeFirstOccurrence(element);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#size()
+	 */
+	@Override
+	public int size() {
+		return available.size();
+	}
+
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Lookup from a pooled instance to its {@link PooledEntry} by identity. The lookup is lock-free and allocation-free, 
+ * as it probes an open addressing table. Entries are added and removed in place, removed entries leave a tombstone 
+ * behind, so concurrent lookups never miss an entry. The table is only rehashed, when its load factor is exceeded. 
+ * A supplier may hand out the same object more than once, so an instance can have several entries.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class IdentityEntryTable<T> {
+	
+	private static final int MIN_CAPACITY = 16;
+	private static final Object TOMBSTONE = new Object();
+	
+	// a lock instead of a monitor, so waiting virtual threads do not pin their carrier
+	private final ReentrantLock lock = new ReentrantLock();
+	private volatile AtomicReferenceArray<Object> table = new AtomicReferenceArray<Object>(MIN_CAPACITY);
+	// guarded by the lock
+	private int size = 0;
+	private int tombstones = 0;
+	
+	/**
+	 * Returns the first entry for the given instance
+	 * @param instance the pooled instance
+	 * @return the entry or <code>null</code> if the instance does not belong to this table
+	 */
+	PooledEntry<T> get(Object instance) {
+		return find(instance, entry -> true);
+	}
+	
+	/**
+	 * Returns the first entry for the given instance, that matches the condition. The condition is tested 
+	 * once per entry in probe order, so it may change the state of the entry, e.g. to free exactly one entry.
+	 * @param instance the pooled instance
+	 * @param condition the condition
+	 * @return the entry or <code>null</code> if no entry of the instance matches
+	 */
+	@SuppressWarnings("unchecked")
+	PooledEntry<T> find(Object instance, Predicate<? super PooledEntry<T>> condition) {
+		AtomicReferenceArray<Object> current = table;
+		int mask = current.length() - 1;
+		for (int i = indexFor(instance, mask); ; i = (i + 1) & mask) {
+			Object slot = current.get(i);
+			if (slot == null) {
+				return null;
+			}
+			if (slot != TOMBSTONE && ((PooledEntry<T>) slot).getInstance() == instance && condition.test((PooledEntry<T>) slot)) {
+				return (PooledEntry<T>) slot;
+			}
+		}
+	}
+	
+	/**
+	 * Adds an entry
+	 * @param entry the entry to add
+	 */
+	void add(PooledEntry<T> entry) {
+		lock.lock();
+		try {
+			if ((size + tombstones + 1) * 2 > table.length()) {
+				rehash(size + 1);
+			}
+			AtomicReferenceArray<Object> current = table;
+			int mask = current.length() - 1;
+			int i = indexFor(entry.getInstance(), mask);
+			Object slot;
+			while ((slot = current.get(i)) != null && slot != TOMBSTONE) {
+				i = (i + 1) & mask;
+			}
+			if (slot == TOMBSTONE) {
+				tombstones--;
+			}
+			current.set(i, entry);
+			size++;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes an entry
+	 * @param entry the entry to remove
+	 * @return <code>true</code>, if the entry was part of the table
+	 */
+	boolean remove(PooledEntry<T> entry) {
+		lock.lock();
+		try {
+			AtomicReferenceArray<Object> current = table;
+			int mask = current.length() - 1;
+			for (int i = indexFor(entry.getInstance(), mask); ; i = (i + 1) & mask) {
+				Object slot = current.get(i);
+				if (slot == null) {
+					return false;
+				}
+				if (slot == entry) {
+					current.set(i, TOMBSTONE);
+					size--;
+					tombstones++;
+					// give memory back, after the pool has shrunk a lot
+					if (current.length() > MIN_CAPACITY && size * 8 < current.length()) {
+						rehash(size);
+					}
+					return true;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes all entries
+	 * @return the entries, that have been removed
+	 */
+	List<PooledEntry<T>> clear() {
+		lock.lock();
+		try {
+			List<PooledEntry<T>> result = collect(table);
+			table = new AtomicReferenceArray<Object>(MIN_CAPACITY);
+			size = 0;
+			tombstones = 0;
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns a snapshot of all entries
+	 * @return a snapshot of all entries
+	 */
+	List<PooledEntry<T>> snapshot() {
+		lock.lock();
+		try {
+			return collect(table);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of entries
+	 * @return the number of entries
+	 */
+	int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the entries of the given table
+	 * @param current the table
+	 * @return the entries without tombstones
+	 */
+	@SuppressWarnings("unchecked")
+	private List<PooledEntry<T>> collect(AtomicReferenceArray<Object> current) {
+		List<PooledEntry<T>> result = new ArrayList<PooledEntry<T>>(size);
+		for (int i = 0; i < current.length(); i++) {
+			Object slot = current.get(i);
+			if (slot != null && slot != TOMBSTONE) {
+				result.add((PooledEntry<T>) slot);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates a new table without tombstones with a load factor of at most 0.5 for the given number of entries and publishes it
+	 * @param expectedSize the number of entries the table needs to hold
+	 */
+	private void rehash(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		AtomicReferenceArray<Object> newTable = new AtomicReferenceArray<Object>(capacity);
+		int mask = capacity - 1;
+		for (PooledEntry<T> entry : collect(table)) {
+			int i = indexFor(entry.getInstance(), mask);
+			while (newTable.get(i) != null) {
+				i = (i + 1) & mask;
+			}
+			newTable.set(i, entry);
+		}
+		tombstones = 0;
+		table = newTable;
+	}
+	
+	private static int indexFor(Object instance, int mask) {
+		int h = System.identityHashCode(instance);
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+}
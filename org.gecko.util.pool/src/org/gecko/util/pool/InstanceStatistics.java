@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the statistics of a single pooled instance.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class InstanceStatistics {
+	
+	private final int useCount;
+	private final long ageMillis;
+	private final boolean inUse;
+	
+	/**
+	 * Creates a new instance.
+	 * @param entry the entry of the instance
+	 * @param now the {@link System#nanoTime()} of the snapshot
+	 */
+	InstanceStatistics(PooledEntry<?> entry, long now) {
+		this.useCount = entry.getUseCount();
+		this.ageMillis = TimeUnit.NANOSECONDS.toMillis(now - entry.getCreationNanos());
+		this.inUse = entry.getState() == PooledEntry.IN_USE;
+	}
+	
+	/**
+	 * Returns how often the instance was borrowed
+	 * @return the number of borrows
+	 */
+	public int getUseCount() {
+		return useCount;
+	}
+	
+	/**
+	 * Returns the time since the instance was created
+	 * @return the age in milliseconds
+	 */
+	public long getAge() {
+		return ageMillis;
+	}
+	
+	/**
+	 * Returns, if the instance was borrowed, when the snapshot was taken
+	 * @return <code>true</code>, if the instance was in use
+	 */
+	public boolean isInUse() {
+		return inUse;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "InstanceStatistics [useCount=" + useCount + ", age=" + ageMillis + "ms, inUse=" + inUse + "]";
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking container for the available instances of a {@link Pool}. 
+ * Waiting for instances is handled by the pool itself.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+interface InstanceStore<E> {
+	
+	/**
+	 * Creates the store for the given engine
+	 * @param engine the engine to use
+	 * @param capacity the expected number of instances
+	 * @return the store
+	 */
+	static <E> InstanceStore<E> create(PoolEngine engine, int capacity) {
+		switch (engine) {
+		case STRIPED:
+			return new StripedInstanceStore<E>(capacity);
+		default:
+			return new DequeInstanceStore<E>();
+		}
+	}
+	
+	/**
+	 * Creates the store for the given engine and selection strategy
+	 * @param engine the engine to use
+	 * @param strategy the selection strategy, only used by the {@link PoolEngine#DEQUE} engine
+	 * @param capacity the expected number of instances
+	 * @param usage the order of the instances by their usage, used by {@link SelectionStrategy#LEAST_USED}
+	 * @return the store
+	 */
+	static <E> InstanceStore<E> create(PoolEngine engine, SelectionStrategy strategy, int capacity, Comparator<? super E> usage) {
+		if (engine != PoolEngine.DEQUE) {
+			return create(engine, capacity);
+		}
+		switch (strategy) {
+		case LIFO:
+			return new DequeInstanceStore<E>(true);
+		case LEAST_USED:
+			return new OrderedInstanceStore<E>(capacity, usage);
+		default:
+			return new DequeInstanceStore<E>();
+		}
+	}
+	
+	/**
+	 * Adds an instance to the store
+	 * @param element the instance
+	 */
+	void offer(E element);
+	
+	/**
+	 * Takes an instance from the store without waiting.
+	 * @return the instance or <code>null</code> if the store is empty
+	 */
+	E poll();
+	
+	/**
+	 * Removes the given instance, if it is part of the store. This is meant for maintenance tasks and not for the hot path.
+	 * @param element the instance to remove
+	 * @return <code>true</code>, if the instance was removed
+	 */
+	boolean remove(E element);
+	
+	/**
+	 * Returns the current number of instances. This might be an estimation and should not be used on the hot path.
+	 * @return the number of instances
+	 */
+	int size();
+	
+	/**
+	 * Removes all instances and hands them to the given consumer
+	 * @param consumer the consumer for the removed instances
+	 */
+	default void drain(Consumer<E> consumer) {
+		E element;
+		while ((element = poll()) != null) {
+			consumer.accept(element);
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Per thread cache in front of a {@link Pool}. Every thread gets its own {@link ThreadCacheSlot} for the last instance 
+ * it released. The slots are registered, so the pool can take the cached instances back, when other threads run out of instances.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class InstanceThreadCache<T> {
+	
+	private final ThreadLocal<ThreadCacheSlot<T>> slot = ThreadLocal.withInitial(this::registerSlot);
+	private final ConcurrentLinkedQueue<ThreadCacheSlot<T>> slots = new ConcurrentLinkedQueue<ThreadCacheSlot<T>>();
+	private volatile boolean enabled = false;
+	
+	/**
+	 * Enables or disables the cache. Instances, that are still cached, need to be taken back with {@link #drain(Consumer)}.
+	 * @param enabled <code>true</code> to enable the cache
+	 */
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the cache is enabled
+	 * @return <code>true</code>, if the cache is enabled
+	 */
+	boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Creates the slot for the current thread and registers it
+	 * @return the new slot
+	 */
+	private ThreadCacheSlot<T> registerSlot() {
+		ThreadCacheSlot<T> newSlot = new ThreadCacheSlot<T>(Thread.currentThread());
+		slots.offer(newSlot);
+		return newSlot;
+	}
+	
+	/**
+	 * Takes the instance from the cache of the current thread and marks it as in use
+	 * @return the entry or <code>null</code>, if the cache is disabled or empty
+	 */
+	PooledEntry<T> poll() {
+		if (!enabled) {
+			return null;
+		}
+		PooledEntry<T> entry = slot.get().take();
+		return entry != null && entry.claim() ? entry : null;
+	}
+	
+	/**
+	 * Puts a released instance into the cache of the current thread
+	 * @param entry the entry of the released instance
+	 * @return <code>true</code>, if the instance was cached
+	 */
+	boolean offer(PooledEntry<T> entry) {
+		return enabled && slot.get().offer(entry);
+	}
+	
+	/**
+	 * Takes the instance out of the cache of the current thread without marking it as in use
+	 * @return the cached entry or <code>null</code>
+	 */
+	PooledEntry<T> retract() {
+		return slot.get().take();
+	}
+	
+	/**
+	 * Takes an instance out of the caches of other threads and marks it as in use. Slots of terminated threads are removed.
+	 * @return the entry or <code>null</code>, if no thread has cached an instance
+	 */
+	PooledEntry<T> steal() {
+		if (slots.isEmpty()) {
+			return null;
+		}
+		for (ThreadCacheSlot<T> candidate : slots) {
+			PooledEntry<T> entry = candidate.take();
+			if (candidate.isOrphaned()) {
+				slots.remove(candidate);
+			}
+			if (entry != null && entry.claim()) {
+				return entry;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Takes all cached instances out of the slots. The slots stay registered, as the threads keep them.
+	 * @param consumer receives the cached entries
+	 */
+	void drain(Consumer<PooledEntry<T>> consumer) {
+		for (ThreadCacheSlot<T> candidate : slots) {
+			PooledEntry<T> entry = candidate.take();
+			if (entry != null) {
+				consumer.accept(entry);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.gecko.util.common.concurrent.ExecutorHelper;
+import org.gecko.util.common.concurrent.NamedThreadFactory;
+import org.gecko.util.pool.exception.PoolException;
+
+/**
+ * Pool with an own elastic sub pool for each key, e.g. a pool name or a tenant. All sub pools share a global maximum 
+ * of instances. If a key needs an instance, but the global maximum is reached, idle instances of other keys are evicted. 
+ * Released instances are disposed instead of kept idle, as long as other keys wait for capacity. 
+ * Polling an existing key is a lookup in a {@link ConcurrentHashMap} followed by the poll of its {@link Pool}, 
+ * which is lock free with the default {@link PoolEngine#STRIPED} engine. 
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class KeyedPool<K, T> {
+	
+	private static final long SHUTDOWN_MILLIS = 1000;
+	
+	private final ConcurrentMap<K, Pool<T>> pools = new ConcurrentHashMap<K, Pool<T>>();
+	private final AtomicInteger totalCount = new AtomicInteger();
+	private final AtomicInteger waitingCount = new AtomicInteger();
+	private final AtomicInteger evictionCursor = new AtomicInteger();
+	private final SharedCapacity capacity = new SharedCapacity();
+	private final String name;
+	private final Function<? super K, ? extends T> pooledObjectSupplier;
+	private final BiConsumer<? super K, ? super T> releaseConsumer;
+	private final int maxTotal;
+	private final int maxPerKey;
+	private final long pollTimeoutMillis;
+	
+	private volatile long idleTimeoutMillis = 0;
+	private volatile PoolEngine engine = PoolEngine.STRIPED;
+	private int releaseThreads = 2;
+	private boolean virtualThreads = false;
+	private volatile ExecutorService releaseExecutor;
+	private volatile ScheduledThreadPoolExecutor scheduledExecutor;
+	private volatile boolean initialized = false;
+	
+	/**
+	 * Creates a new instance.
+	 * @param name the name of the pool
+	 * @param pooledObjectSupplier creates an instance for a key
+	 * @param releaseConsumer disposes an instance of a key
+	 * @param maxTotal the maximum number of instances over all keys
+	 * @param maxPerKey the maximum number of instances of one key
+	 * @param pollTimeoutMillis the default timeout for a poll
+	 */
+	public KeyedPool(String name, Function<? super K, ? extends T> pooledObjectSupplier, BiConsumer<? super K, ? super T> releaseConsumer, int maxTotal, int maxPerKey, long pollTimeoutMillis) {
+		if (maxTotal < 1 || maxPerKey < 1) {
+			throw new IllegalArgumentException("The KeyedPool[" + name + "] needs a positive maximum of instances");
+		}
+		this.name = name;
+		this.pooledObjectSupplier = pooledObjectSupplier;
+		this.releaseConsumer = releaseConsumer;
+		this.maxTotal = maxTotal;
+		this.maxPerKey = Math.min(maxPerKey, maxTotal);
+		this.pollTimeoutMillis = pollTimeoutMillis;
+	}
+	
+	/**
+	 * Sets the pool to ready. Sub pools are created with the first poll of their key.
+	 */
+	public void initialize() {
+		ExecutorService executor = virtualThreads ? ExecutorHelper.newVirtualThreadExecutor("KeyedPool-" + name + "-release") : null;
+		releaseExecutor = executor != null ? executor : Executors.newFixedThreadPool(releaseThreads, NamedThreadFactory.newNamedFactory("KeyedPool-" + name + "-release"));
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, NamedThreadFactory.newNamedFactory("KeyedPool-" + name + "-scheduler"));
+		scheduler.setRemoveOnCancelPolicy(true);
+		scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		scheduledExecutor = scheduler;
+		initialized = true;
+	}
+	
+	/**
+	 * Disposes all sub pools and their instances
+	 */
+	public void dispose() {
+		initialized = false;
+		pools.values().forEach(Pool::dispose);
+		pools.clear();
+		ExecutorHelper.shutdownExecutorServiceWithAwait(releaseExecutor, SHUTDOWN_MILLIS);
+		ExecutorHelper.shutdownExecutorServiceWithAwait(scheduledExecutor, SHUTDOWN_MILLIS);
+	}
+	
+	/**
+	 * Polls an instance of the given key. If no instance can be acquired in the defined default timeout, 
+	 * a {@link PoolException} is thrown.
+	 * @param key the key
+	 * @return the desired instance
+	 */
+	public T poll(K key) {
+		return poll(key, pollTimeoutMillis);
+	}
+	
+	/**
+	 * Polls an instance of the given key. If no instance can be acquired before the given timeout is reached, 
+	 * a {@link PoolException} is thrown.
+	 * @param key the key
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @return the desired instance
+	 */
+	public T poll(K key, long timeout) {
+		return getOrCreatePool(key).poll(timeout);
+	}
+	
+	/**
+	 * Borrows an instance of the given key as {@link PooledLease}, that returns the instance, when it is closed.
+	 * If no instance can be acquired in the defined default timeout, a {@link PoolException} is thrown.
+	 * @param key the key
+	 * @return the lease of the desired instance
+	 */
+	public PooledLease<T> borrow(K key) {
+		return borrow(key, pollTimeoutMillis);
+	}
+	
+	/**
+	 * Borrows an instance of the given key as {@link PooledLease}, that returns the instance, when it is closed.
+	 * If no instance can be acquired before the given timeout is reached, a {@link PoolException} is thrown.
+	 * @param key the key
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @return the lease of the desired instance
+	 */
+	public PooledLease<T> borrow(K key, long timeout) {
+		return getOrCreatePool(key).borrow(timeout);
+	}
+	
+	/**
+	 * Releases an instance back to the sub pool of its key
+	 * @param key the key, the instance was polled for
+	 * @param instance the instance to release
+	 */
+	public void release(K key, T instance) {
+		Pool<T> pool = pools.get(key);
+		if (pool == null) {
+			throw new PoolException("The instance does not belong to a key of the KeyedPool[" + name + "]");
+		}
+		pool.release(instance);
+	}
+	
+	/**
+	 * Removes the sub pool of the given key and disposes its instances
+	 * @param key the key
+	 */
+	public void removePool(K key) {
+		Pool<T> pool = pools.remove(key);
+		if (pool != null) {
+			pool.dispose();
+		}
+	}
+	
+	/**
+	 * Returns the sub pool of the given key
+	 * @param key the key
+	 * @return the sub pool or <code>null</code>, if the key was not polled yet
+	 */
+	public Pool<T> getPool(K key) {
+		return pools.get(key);
+	}
+	
+	/**
+	 * Returns the keys, that have a sub pool
+	 * @return the keys
+	 */
+	public Set<K> getKeys() {
+		return Collections.unmodifiableSet(pools.keySet());
+	}
+	
+	/**
+	 * Returns the name of the pool
+	 * @return the name of the pool
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the maximum number of instances over all keys
+	 * @return the global maximum
+	 */
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+	
+	/**
+	 * Returns the maximum number of instances of a single key
+	 * @return the maximum of a key
+	 */
+	public int getMaxPerKey() {
+		return maxPerKey;
+	}
+	
+	/**
+	 * Returns the current number of instances over all keys
+	 * @return the number of instances
+	 */
+	public int getTotalCount() {
+		return totalCount.get();
+	}
+	
+	/**
+	 * Returns the number of borrowers over all keys, that wait for an instance
+	 * @return the number of waiting borrowers
+	 */
+	public int getWaitingCount() {
+		return waitingCount.get();
+	}
+	
+	/**
+	 * Sets the time after which idle instances of a key are evicted. A value of 0 keeps idle instances, 
+	 * until another key needs the capacity. Changes take effect for sub pools created afterwards.
+	 * @param idleTimeoutMillis the idle timeout in milliseconds
+	 */
+	public void setIdleTimeout(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = Math.max(0, idleTimeoutMillis);
+	}
+	
+	/**
+	 * Sets the engine of the sub pools. Changes take effect for sub pools created afterwards.
+	 * @param engine the engine, <code>null</code> for {@link PoolEngine#STRIPED}
+	 */
+	public void setEngine(PoolEngine engine) {
+		this.engine = engine == null ? PoolEngine.STRIPED : engine;
+	}
+	
+	/**
+	 * Returns the engine of the sub pools
+	 * @return the engine
+	 */
+	public PoolEngine getEngine() {
+		return engine;
+	}
+	
+	/**
+	 * Sets the number of threads of the release executor, that is shared by all sub pools. 
+	 * Changes take effect with the next initialization.
+	 * @param releaseThreads the number of threads, must be positive
+	 */
+	public void setReleaseThreads(int releaseThreads) {
+		if (releaseThreads < 1) {
+			throw new IllegalArgumentException("The KeyedPool[" + name + "] needs at least one release thread");
+		}
+		this.releaseThreads = releaseThreads;
+	}
+	
+	/**
+	 * Runs the work of the shared release executor on virtual threads, if the JVM supports them. 
+	 * Changes take effect with the next initialization.
+	 * @param virtualThreads <code>true</code> to use virtual threads
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+	
+	private Pool<T> getOrCreatePool(K key) {
+		if (!initialized) {
+			throw new PoolException("The KeyedPool[" + name + "] is not initialized");
+		}
+		Pool<T> pool = pools.get(key);
+		return pool != null ? pool : pools.computeIfAbsent(key, this::createPool);
+	}
+	
+	/**
+	 * Creates the elastic sub pool of a key, that shares the executors and the capacity of this pool
+	 * @param key the key
+	 * @return the initialized sub pool
+	 */
+	private Pool<T> createPool(K key) {
+		Pool<T> pool = new Pool<T>(name + "-" + key, () -> pooledObjectSupplier.apply(key), instance -> releaseConsumer.accept(key, instance), maxPerKey, pollTimeoutMillis, engine);
+		pool.setMinIdle(0);
+		pool.setIdleTimeout(idleTimeoutMillis);
+		pool.setReleaseExecutor(releaseExecutor);
+		pool.setScheduledExecutor(scheduledExecutor);
+		pool.setCapacity(capacity);
+		pool.initialize();
+		return pool;
+	}
+	
+	/**
+	 * Global maximum of instances, shared by all sub pools
+	 */
+	private class SharedCapacity implements PoolCapacity {
+
+		/* 
+		 * (non-Javadoc)
+		 * @see org.gecko.util.pool.PoolCapacity#acquire(org.gecko.util.pool.Pool)
+		 */
+		@Override
+		public boolean acquire(Pool<?> pool) {
+			while (true) {
+				int count = totalCount.get();
+				if (count < maxTotal) {
+					if (totalCount.compareAndSet(count, count + 1)) {
+						return true;
+					}
+				} else if (!evictIdle(pool)) {
+					return false;
+				}
+			}
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see org.gecko.util.pool.PoolCapacity#release(org.gecko.util.pool.Pool, int)
+		 */
+		@Override
+		public void release(Pool<?> pool, int count) {
+			totalCount.addAndGet(-count);
+			if (waitingCount.get() == 0) {
+				return;
+			}
+			for (Pool<T> other : pools.values()) {
+				if (other != pool && other.hasWaiters()) {
+					other.fillWaiters();
+				}
+			}
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see org.gecko.util.pool.PoolCapacity#isContended(org.gecko.util.pool.Pool)
+		 */
+		@Override
+		public boolean isContended(Pool<?> pool) {
+			// the asking pool has no waiters, so every waiter belongs to another pool
+			return totalCount.get() >= maxTotal && waitingCount.get() > 0;
+		}
+		
+		/* 
+		 * (non-Javadoc)
+		 * @see org.gecko.util.pool.PoolCapacity#waiting(int)
+		 */
+		@Override
+		public void waiting(int delta) {
+			waitingCount.addAndGet(delta);
+		}
+		
+		/**
+		 * Evicts an idle instance of another key. The keys are tried round robin, starting one key further 
+		 * with every eviction, so the idle instances of all keys are evicted evenly without counting them first.
+		 * @param pool the pool, that needs the capacity
+		 * @return <code>true</code>, if an instance was evicted
+		 */
+		private boolean evictIdle(Pool<?> pool) {
+			int start = Math.floorMod(evictionCursor.getAndIncrement(), Math.max(1, pools.size()));
+			int index = 0;
+			// the keys before the start are tried last
+			for (Pool<T> other : pools.values()) {
+				if (index++ >= start && other != pool && other.evictIdleInstance()) {
+					return true;
+				}
+			}
+			index = 0;
+			for (Pool<T> other : pools.values()) {
+				if (index++ >= start) {
+					return false;
+				}
+				if (other != pool && other.evictIdleInstance()) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+	}
+
+}
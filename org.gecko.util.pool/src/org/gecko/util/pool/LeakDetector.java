@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Finds instances of a {@link Pool}, that are borrowed longer then the maximum lease duration. 
+ * For a sample of the borrows, the stack trace of the borrowing call is kept, so a leak can be logged with its borrow site.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class LeakDetector<T> {
+	
+	private static final Logger logger = Logger.getLogger(LeakDetector.class.getName());
+	
+	private final String poolName;
+	private volatile long maxLeaseMillis = 0;
+	private volatile int sampleRate = 0;
+	
+	/**
+	 * Creates a new instance.
+	 * @param poolName the name of the pool, used in log messages
+	 */
+	LeakDetector(String poolName) {
+		this.poolName = poolName;
+	}
+	
+	/**
+	 * Sets the maximum time an instance may be borrowed
+	 * @param maxLeaseMillis the maximum lease duration in milliseconds or 0, to disable the leak detection
+	 */
+	void setMaxLeaseDuration(long maxLeaseMillis) {
+		this.maxLeaseMillis = Math.max(0, maxLeaseMillis);
+	}
+	
+	/**
+	 * Returns the maximum time an instance may be borrowed
+	 * @return the maximum lease duration in milliseconds or 0, if the leak detection is disabled
+	 */
+	long getMaxLeaseDuration() {
+		return maxLeaseMillis;
+	}
+	
+	/**
+	 * Sets how often the stack trace of a borrowing call is captured
+	 * @param sampleRate the sample rate, 0 captures none
+	 */
+	void setSampleRate(int sampleRate) {
+		this.sampleRate = Math.max(0, sampleRate);
+	}
+	
+	/**
+	 * Captures the borrow site of an entry, if the leak detection is enabled and the borrow is sampled
+	 * @param entry the borrowed entry
+	 */
+	void borrowed(PooledEntry<T> entry) {
+		if (maxLeaseMillis > 0) {
+			int rate = sampleRate;
+			entry.setBorrowSite(rate > 0 && ThreadLocalRandom.current().nextInt(rate) == 0 ? 
+					new Throwable("Instance of Pool[" + poolName + "] borrowed by " + Thread.currentThread().getName()) : null);
+		}
+	}
+	
+	/**
+	 * Removes the entries, that are borrowed longer then the maximum lease duration, from the pool and logs them 
+	 * together with their borrow site, if it was sampled
+	 * @param entries all entries of the pool
+	 * @param nanoClock the clock of the pool
+	 * @param abandoned receives the entries, that have been removed
+	 */
+	void reclaim(Collection<PooledEntry<T>> entries, LongSupplier nanoClock, Consumer<PooledEntry<T>> abandoned) {
+		long maxLeaseNanos = TimeUnit.MILLISECONDS.toNanos(maxLeaseMillis);
+		if (maxLeaseNanos <= 0) {
+			return;
+		}
+		for (PooledEntry<T> entry : entries) {
+			int stamp = entry.getStamp();
+			if (PooledEntry.getState(stamp) != PooledEntry.IN_USE) {
+				continue;
+			}
+			// the borrow time is read after the stamp, so it belongs to this or a later borrow
+			long leaseNanos = nanoClock.getAsLong() - entry.getBorrowNanos();
+			if (leaseNanos < maxLeaseNanos || !entry.abandon(stamp)) {
+				continue;
+			}
+			Throwable borrowSite = entry.getBorrowSite();
+			String message = "Pool[" + poolName + "] reclaims an instance, that was not released for " + TimeUnit.NANOSECONDS.toMillis(leaseNanos) + " ms";
+			if (borrowSite == null) {
+				logger.warning(message + ". Set a leak sample rate to log the borrow site.");
+			} else {
+				logger.log(Level.WARNING, message, borrowSite);
+			}
+			abandoned.accept(entry);
+		}
+	}
+
+}
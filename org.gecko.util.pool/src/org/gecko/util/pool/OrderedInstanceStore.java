@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * {@link InstanceStore}, that hands out the instance first, which is preferred by the given order, 
+ * e.g. the least used one.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class OrderedInstanceStore<E> implements InstanceStore<E> {
+	
+	private final PriorityBlockingQueue<E> available;
+	
+	/**
+	 * Creates a new instance.
+	 * @param capacity the expected number of instances
+	 * @param order the order, the instances are handed out in
+	 */
+	OrderedInstanceStore(int capacity, Comparator<? super E> order) {
+		available = new PriorityBlockingQueue<E>(Math.max(1, capacity), order);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#offer(java.lang.Object)
+	 */
+	@Override
+	public void offer(E element) {
+		available.offer(element);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#poll()
+	 */
+	@Override
+	public E poll() {
+		return available.poll();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(E element) {
+		return available.remove(element);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#size()
+	 */
+	@Override
+	public int size() {
+		return available.size();
+	}
+
+}
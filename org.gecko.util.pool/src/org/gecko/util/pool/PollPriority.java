@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * Priority of a poll on a {@link Pool}. Released instances are handed to the waiting poll with the highest priority 
+ * and, within the same priority, to the one with the earliest deadline.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public enum PollPriority {
+	
+	/**
+	 * Background work. A low priority poll fails immediately, if the pool estimates, that it can't be served before its timeout.
+	 */
+	LOW,
+	
+	/**
+	 * The priority of all polls, that don't define one.
+	 */
+	NORMAL,
+	
+	/**
+	 * Latency critical work, that is served before all other waiting polls.
+	 */
+	HIGH;
+	
+}
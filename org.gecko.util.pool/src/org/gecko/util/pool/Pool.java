@@ -13,15 +13,40 @@
  */
 package org.gecko.util.pool;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
+import org.gecko.util.common.concurrent.ExecutorHelper;
+import org.gecko.util.common.concurrent.NamedThreadFactory;
+import org.gecko.util.common.jmx.MBeanable;
 import org.gecko.util.pool.exception.PoolException;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 
 /**
  * A generic implementation of an Object pool.
@@ -29,20 +54,64 @@ import org.gecko.util.pool.exception.PoolException;
  * @author Juergen Albert
  * @since 30 Oct 2019
  */
-public class Pool<T extends Object> {
+public class Pool<T extends Object> implements MBeanable {
 
-	private final LinkedBlockingDeque<T> inUse = new LinkedBlockingDeque<T>();
-	private final LinkedBlockingDeque<T> available = new LinkedBlockingDeque<T>();
+	private static final Logger logger = Logger.getLogger(Pool.class.getName());
+	
+	private final IdentityEntryTable<T> entries = new IdentityEntryTable<T>();
+	private volatile InstanceStore<PooledEntry<T>> available;
+	private volatile SelectionStrategy selectionStrategy = SelectionStrategy.FIFO;
+	private SelectionStrategy availableStrategy = SelectionStrategy.FIFO;
+	private final WaiterQueue<PooledEntry<T>> waiters = new WaiterQueue<PooledEntry<T>>();
 	private final Supplier<T> pooledObjectSupplier;
 	private final Consumer<T> releaseConsumer;
-	private final AtomicInteger currentPoolSize;
+	private final PoolSizing sizing;
+	private final PoolEngine engine;
+	private final PoolMetrics metrics = new PoolMetrics(this);
+	private final ReentrantLock batchLock = new ReentrantLock();
+	
+	private static final int DEFAULT_RELEASE_THREADS = 4;
+	private static final long RELEASE_SHUTDOWN_MILLIS = 1000;
+	private static final long DEFAULT_MAINTENANCE_MILLIS = 1000;
+	private static final long MIN_MAINTENANCE_MILLIS = 10;
+	private static final long WARM_UP_KEEP_ALIVE_MILLIS = 1000;
+	
+	private volatile ExecutorService releaseExecutor;
+	private ExecutorService externalReleaseExecutor;
+	private volatile ReleaseMode releaseMode = ReleaseMode.ASYNC;
+	private int releaseThreads = DEFAULT_RELEASE_THREADS;
+	private boolean virtualThreads = false;
+	private volatile ScheduledExecutorService scheduledExecutor;
+	private ScheduledExecutorService externalScheduledExecutor;
+	private final ReentrantLock schedulerLock = new ReentrantLock();
+	private boolean ownScheduler = false;
+	private volatile PromiseFactory promiseFactory;
+	private volatile ExecutorService warmUpExecutor;
+	private int warmUpThreads = 0;
+	private final AtomicInteger warmUpRequested = new AtomicInteger();
+	private final AtomicInteger warmUpCompleted = new AtomicInteger();
+	private volatile Promise<Integer> warmUp;
+	private volatile PoolInitialization initialization = PoolInitialization.EAGER;
+	private final AtomicBoolean awaitingFirstBorrow = new AtomicBoolean();
+	private final InstanceThreadCache<T> threadCache = new InstanceThreadCache<T>();
+	private final List<ScheduledFuture<?>> maintenanceFutures = new CopyOnWriteArrayList<ScheduledFuture<?>>();
+	private volatile PoolSizeController sizeController;
+	
+	private volatile PoolSnapshot<T> snapshot;
+	private volatile PoolSnapshot<T> restoredFrom;
+	private volatile CircuitBreaker circuitBreaker;
+	private int breakerThreshold = 0;
+	private long breakerBackoffMillis;
+	private long breakerMaxBackoffMillis;
 	
-	private final Executor executor = Executors.newFixedThreadPool(4);
+	private final PoolValidation<T> validation;
+	private final LeakDetector<T> leakDetector;
 	
-	private String name;
-	private long pollTimeoutMillis;
+	private final String name;
+	private volatile long pollTimeoutMillis;
 	
-	private boolean initialized = false;;
+	private volatile boolean initialized = false;
+	private volatile LongSupplier nanoClock = System::nanoTime;
 	
 	/**
 	 * Creates a new instance.
@@ -53,102 +122,1857 @@ public class Pool<T extends Object> {
 	 * @param pollTimeoutMillis how many Milliseconds the pool will wait until the poll times out
 	 */
 	public Pool(String name, Supplier<T> pooledObjectSupplier, Consumer<T> releaseConsumer, int startPoolSize, long pollTimeoutMillis) {
+		this(name, pooledObjectSupplier, releaseConsumer, startPoolSize, pollTimeoutMillis, PoolEngine.DEQUE);
+	}
+	
+	/**
+	 * Creates a new instance.
+	 * @param name A name for this Pool
+	 * @param pooledObjectSupplier creates the Objects the pool is filled with
+	 * @param releaseConsumer handles the dispose of pooled instances
+	 * @param startPoolSize the initial size of the pool
+	 * @param pollTimeoutMillis how many Milliseconds the pool will wait until the poll times out
+	 * @param engine the engine that holds the available instances
+	 */
+	public Pool(String name, Supplier<T> pooledObjectSupplier, Consumer<T> releaseConsumer, int startPoolSize, long pollTimeoutMillis, PoolEngine engine) {
 		this.name = name;
 		this.pooledObjectSupplier = pooledObjectSupplier;
 		this.releaseConsumer = releaseConsumer;
 		this.pollTimeoutMillis = pollTimeoutMillis;
-		this.currentPoolSize = new AtomicInteger(startPoolSize);
+		this.sizing = new PoolSizing(this, waiters, startPoolSize);
+		this.validation = new PoolValidation<T>(name);
+		this.leakDetector = new LeakDetector<T>(name);
+		this.engine = engine == null ? PoolEngine.DEQUE : engine;
+		this.available = InstanceStore.create(this.engine, startPoolSize);
 	}
 	
 	/**
-	 * Fills the pool and sets itself to ready
+	 * Fills the pool and sets itself to ready. With warm-up threads, the instances are created in parallel 
+	 * and the pool is ready immediately. Threads polling in the meantime get the instances as soon as they are created.
+	 * @see #setWarmUpThreads(int)
 	 */
 	public void initialize() {
-		for(int i  = 0; i < currentPoolSize.get(); i++) {
-			available.add(pooledObjectSupplier.get());
+		releaseExecutor = externalReleaseExecutor == null ? createReleaseExecutor() : externalReleaseExecutor;
+		// without a shared scheduler, the own one is created on first use
+		scheduledExecutor = externalScheduledExecutor;
+		promiseFactory = new PromiseFactory(null, externalScheduledExecutor);
+		if (selectionStrategy != availableStrategy) {
+			InstanceStore<PooledEntry<T>> former = available;
+			available = InstanceStore.create(engine, selectionStrategy, sizing.getSize(), 
+					(e1, e2) -> Integer.compare(e1.getUseCount(), e2.getUseCount()));
+			availableStrategy = selectionStrategy;
+			former.drain(available::offer);
+		}
+		warmUpRequested.set(0);
+		warmUpCompleted.set(0);
+		boolean lazy = initialization != PoolInitialization.EAGER;
+		awaitingFirstBorrow.set(lazy);
+		int initialSize = lazy ? 0 : sizing.getFillSize();
+		circuitBreaker = breakerThreshold > 0 ? new CircuitBreaker(breakerThreshold, breakerBackoffMillis, breakerMaxBackoffMillis, nanoClock) : null;
+		PoolSnapshot<T> currentSnapshot = snapshot;
+		restoredFrom = currentSnapshot;
+		if (currentSnapshot != null) {
+			currentSnapshot.restore(initialSize - sizing.getCount(), this::restoreInstance);
+		}
+		if (warmUpThreads > 0) {
+			warmUpExecutor = createWarmUpExecutor();
+			initialized = true;
+			warmUp = warmUp(initialSize - sizing.getCount());
+		} else {
+			fill(initialSize);
+			initialized = true;
+			warmUp = promiseFactory.resolved(sizing.getCount());
 		}
-		initialized = true;
+		scheduleMaintenance();
 	}
 	
-	private void checkInitializationState() {
-		if(!initialized) {
-			throw new PoolException("The Pool[" + name + "] needs is eather not intialized or already disposed.");
+	/**
+	 * Returns the scheduled executor for timeouts and background tasks. If no shared one was set, 
+	 * the pool creates its own one on first use and shuts it down on {@link #dispose()}.
+	 * @return the scheduled executor
+	 * @throws RejectedExecutionException if the pool is not initialized
+	 */
+	private ScheduledExecutorService getScheduledExecutor() {
+		ScheduledExecutorService scheduler = scheduledExecutor;
+		if (scheduler != null) {
+			return scheduler;
+		}
+		schedulerLock.lock();
+		try {
+			if (!initialized) {
+				throw new RejectedExecutionException("The Pool[" + name + "] was disposed");
+			}
+			if (scheduledExecutor == null) {
+				ScheduledThreadPoolExecutor ownScheduler = new ScheduledThreadPoolExecutor(1, NamedThreadFactory.newNamedFactory("Pool-" + name + "-scheduler"));
+				ownScheduler.setRemoveOnCancelPolicy(true);
+				ownScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+				scheduledExecutor = ownScheduler;
+				this.ownScheduler = true;
+			}
+			return scheduledExecutor;
+		} finally {
+			schedulerLock.unlock();
 		}
 	}
 	
 	/**
-	 * Adjusts the current size of the pool. If the size increases, new instances will be added synchronously.
-	 * If the new size is smaller then the current size, this method will return immediately. The next instances 
-	 * that get released, will be disposed until the desired size is reached.  
-	 * @param size
+	 * Creates the given number of instances in parallel on the warm-up executor
+	 * @param count the number of instances to create
+	 * @return the promise resolved with the number of successfully created instances
 	 */
-	public void modifyPoolSize(int size) {
-		checkInitializationState();
-		int currentSize = currentPoolSize.getAndSet(size);
-		if(currentSize < size){
-			for(int i = 0 ; i < size - currentSize; i++){
-				available.offer(pooledObjectSupplier.get());
+	private Promise<Integer> warmUp(int count) {
+		return warmUp(count, warmUpExecutor);
+	}
+	
+	/**
+	 * Creates the given number of instances in parallel on the given executor
+	 * @param count the number of instances to create
+	 * @param executor the executor, that creates the instances
+	 * @return the promise resolved with the number of successfully created instances
+	 */
+	private Promise<Integer> warmUp(int count, Executor executor) {
+		int reserved = 0;
+		while (reserved < count && sizing.reserve()) {
+			reserved++;
+		}
+		if (reserved == 0) {
+			return promiseFactory.resolved(0);
+		}
+		Deferred<Integer> deferred = promiseFactory.deferred();
+		AtomicInteger pending = new AtomicInteger(reserved);
+		AtomicInteger created = new AtomicInteger();
+		warmUpRequested.addAndGet(reserved);
+		Runnable task = () -> {
+			try {
+				PooledEntry<T> entry = createReservedEntry();
+				if (entry != null) {
+					returnInstance(entry);
+					created.incrementAndGet();
+				}
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Pool[" + name + "] could not create a new instance during warm-up", e);
+			} finally {
+				warmUpCompleted.incrementAndGet();
+				if (pending.decrementAndGet() == 0) {
+					deferred.resolve(created.get());
+				}
+			}
+		};
+		for (int i = 0; i < reserved; i++) {
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				// the pool was disposed in the meantime
+				sizing.release(1);
+				warmUpCompleted.incrementAndGet();
+				if (pending.decrementAndGet() == 0) {
+					deferred.resolve(created.get());
+				}
 			}
 		}
+		return deferred.getPromise();
 	}
 	
 	/**
-	 * Disposes all Objects and clears the pool. It can be reused by calling initialize again.
+	 * Returns the promise of the last warm-up, that was started by {@link #initialize()}, {@link #modifyPoolSize(int)} or {@link #resize(int)}. 
+	 * The promise is resolved with the number of created instances. Without warm-up threads, it is already resolved.
+	 * @return the promise of the last warm-up or <code>null</code>, if the pool was never initialized
 	 */
-	public void dispose() {
-		inUse.forEach(releaseConsumer);
-		inUse.clear();
-		available.forEach(releaseConsumer);
-		available.clear();
-		initialized = false;
+	public Promise<Integer> getWarmUp() {
+		return warmUp;
 	}
 	
 	/**
-	 * Polls for an Instance. If no instance can be acquired in the defined default timeout, 
-	 * a {@link PoolException} is thrown.
-	 * @return the desired instance
+	 * Returns the progress of the warm-ups since the last initialization
+	 * @return a value between 0 and 1, where 1 means that all requested instances have been created
 	 */
-	public T poll() {
-		return poll(pollTimeoutMillis);
+	public double getWarmUpProgress() {
+		int requested = warmUpRequested.get();
+		return requested == 0 ? 1.0 : Math.min(1.0, (double) warmUpCompleted.get() / requested);
 	}
-
+	
 	/**
-	 * Polls for an Instance. If no instance can be acquired before the given timeout is reached, 
-	 * a {@link PoolException} is thrown.
-	 * @param a timeout in milliseconds for the poll
-	 * @return the desired instance
+	 * Sets when the pool creates its instances. Changes take effect with the next initialization.
+	 * @param initialization the initialization, <code>null</code> for {@link PoolInitialization#EAGER}
 	 */
-	public T poll(long timeout) {
-		checkInitializationState();
+	public void setInitialization(PoolInitialization initialization) {
+		this.initialization = initialization == null ? PoolInitialization.EAGER : initialization;
+	}
+	
+	/**
+	 * Returns when the pool creates its instances
+	 * @return the initialization
+	 */
+	public PoolInitialization getInitialization() {
+		return initialization;
+	}
+	
+	/**
+	 * Marks a lazy pool as used and starts the background fill, if it is configured. 
+	 * With warm-up threads, the progress can be followed with {@link #getWarmUp()}.
+	 */
+	private void onFirstBorrow() {
+		if (!awaitingFirstBorrow.compareAndSet(true, false) || initialization != PoolInitialization.LAZY_PREFILL || !initialized) {
+			return;
+		}
+		int missing = sizing.getFillSize() - sizing.getCount();
+		if (missing <= 0) {
+			return;
+		}
+		if (warmUpExecutor != null) {
+			warmUp = warmUp(missing);
+		} else {
+			for (int i = 0; i < missing; i++) {
+				createAsync();
+			}
+		}
+	}
+	
+	/**
+	 * Sets the number of threads, that create instances in parallel on {@link #initialize()} and when the pool grows.
+	 * The warm-up threads terminate, when they are idle, and are started again, when the pool grows. 
+	 * Changes take effect with the next initialization.
+	 * @param warmUpThreads the number of threads or 0, to create the instances synchronously on the calling thread
+	 */
+	public void setWarmUpThreads(int warmUpThreads) {
+		this.warmUpThreads = Math.max(0, warmUpThreads);
+	}
+	
+	/**
+	 * Creates the warm-up executor. Its threads terminate, when they were idle for a second, 
+	 * so they don't stay around after the warm-up. They are started again, when the pool grows.
+	 * @return the warm-up executor
+	 */
+	private ExecutorService createWarmUpExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(warmUpThreads, warmUpThreads, WARM_UP_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS, 
+				new LinkedBlockingQueue<Runnable>(), NamedThreadFactory.newNamedFactory("Pool-" + name + "-warmup"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * Sets the capacity, this pool shares with other pools. Each instance needs to be acquired from it.
+	 * @param capacity the shared capacity or <code>null</code>
+	 */
+	void setCapacity(PoolCapacity capacity) {
+		sizing.setCapacity(capacity);
+		waiters.setCapacity(capacity);
+	}
+	
+	/**
+	 * Returns <code>true</code>, if borrowers wait for an instance of this pool
+	 * @return <code>true</code>, if there are waiters
+	 */
+	boolean hasWaiters() {
+		return !waiters.isEmpty();
+	}
+	
+	/**
+	 * Evicts one idle instance to give its capacity to another pool
+	 * @return <code>true</code>, if an instance was evicted
+	 */
+	boolean evictIdleInstance() {
+		PooledEntry<T> entry;
+		while ((entry = available.poll()) != null) {
+			if (entry.evict()) {
+				PooledEntry<T> evicted = entry;
+				sizing.release(1);
+				executeRelease(() -> destroyEntry(evicted));
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates an instance for a waiting borrower, after capacity was given back to the shared capacity
+	 */
+	void fillWaiters() {
+		if (initialized && !waiters.isEmpty()) {
+			createAsync();
+		}
+	}
+	
+	/**
+	 * Creates a new instance for a reservation made with {@link PoolSizing#reserve()}. 
+	 * The reservation is given back, if the creation fails with any kind of {@link Throwable} or is skipped.
+	 * @return the entry of the new instance or <code>null</code>, if the circuit breaker did not allow the creation
+	 */
+	private PooledEntry<T> createReservedEntry() {
+		PooledEntry<T> entry = null;
 		try {
-			T instance = available.poll(timeout, TimeUnit.MILLISECONDS);
-			if(instance == null) {
-				throw new PoolException("Pool[" + name + "] couldn't aquire a new instance in " + pollTimeoutMillis + " ms"); 
+			entry = createEntry();
+			return entry;
+		} finally {
+			// errors of the supplier must not leak the reservation either
+			if (entry == null) {
+				sizing.release(1);
+				failWaiters();
 			}
-			inUse.offer(instance);
-			return instance;
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-			throw new PoolException("Somewhing went wrong while quireing an Object from the Pool[" + name + "]", e);
 		}
 	}
 	
 	/**
-	 * Retunrs the given instance to the pool.
-	 * @param instance the instance to release
+	 * Creates a new instance on the calling thread, if the pool has not yet reached its maximum size
+	 * @return the entry of the new instance, already marked as in use or <code>null</code>, if the pool is full or does not create instances
 	 */
-	public void release(final T instance) {
-		checkInitializationState();
-		executor.execute(() -> {
-			int actualPoolSize = available.size() + inUse.size();
-			boolean removed = inUse.removeFirstOccurrence(instance);
-			if (removed) {
-				if(actualPoolSize > currentPoolSize.get()){
-					releaseConsumer.accept(instance);
-				} else {
-					available.offer(instance);
-				}
+	private PooledEntry<T> createOnDemand() {
+		if (isCircuitOpen() || !sizing.reserve()) {
+			return null;
+		}
+		PooledEntry<T> entry = createReservedEntry();
+		if (entry == null) {
+			return null;
+		}
+		entry.claim();
+		if (awaitingFirstBorrow.get()) {
+			onFirstBorrow();
+		}
+		return entry;
+	}
+	
+	/**
+	 * Creates a new instance on the release executor and hands it to the next waiter
+	 */
+	private void createAsync() {
+		if (isCircuitOpen() || !sizing.reserve()) {
+			return;
+		}
+		executeRelease(() -> {
+			try {
+				returnInstance(createReservedEntry());
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Pool[" + name + "] could not create a new instance", e);
+			}
+		});
+	}
+	
+	/**
+	 * Creates a new instance and registers it with the pool
+	 * @return the entry of the new instance or <code>null</code>, if the circuit breaker did not allow the creation
+	 */
+	private PooledEntry<T> createEntry() {
+		CircuitBreaker breaker = circuitBreaker;
+		if (breaker == null) {
+			return registerEntry(pooledObjectSupplier.get());
+		}
+		if (!breaker.allowCreation()) {
+			// another borrower probes the supplier, the caller waits for its outcome
+			return null;
+		}
+		T instance;
+		try {
+			instance = pooledObjectSupplier.get();
+		} catch (Throwable e) {
+			// every failure is reported, otherwise a failed probe would leave the circuit half open for good
+			if (breaker.onFailure()) {
+				metrics.circuitOpened();
+				logger.log(Level.WARNING, "Pool[" + name + "] stops creating instances for a while, because its supplier keeps failing", e);
+			}
+			throw e;
+		}
+		boolean closed = breaker.onSuccess();
+		PooledEntry<T> entry = registerEntry(instance);
+		if (closed) {
+			// borrowers, that queued themselves during the probe, get their own instances
+			for (int i = waiters.size(); i > 0; i--) {
+				createAsync();
+			}
+		}
+		return entry;
+	}
+	
+	/**
+	 * Fills the pool on the calling thread up to the given number of instances
+	 * @param count the number of instances
+	 */
+	private void fill(int count) {
+		while (sizing.getCount() < count && !isCircuitOpen() && sizing.reserve()) {
+			if (!createSafely()) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Creates an instance for a reservation and returns it to the pool. Without a circuit breaker, a failure 
+	 * is thrown to the caller. With a circuit breaker, the failure is logged and the pool will create the instance 
+	 * on demand later on.
+	 * @return <code>true</code>, if the instance was created
+	 */
+	private boolean createSafely() {
+		if (circuitBreaker == null) {
+			returnInstance(createReservedEntry());
+			return true;
+		}
+		try {
+			PooledEntry<T> entry = createReservedEntry();
+			returnInstance(entry);
+			return entry != null;
+		} catch (RuntimeException e) {
+			logger.log(Level.FINE, "Pool[" + name + "] could not create a new instance", e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Protects the pool against a failing supplier. After the given number of consecutive failures, the pool stops 
+	 * creating instances for the backoff time. Then a single creation is tried. If it fails, the backoff is doubled up 
+	 * to the maximum, otherwise the pool creates instances as usual again. While the pool can't create instances and has 
+	 * no instance left, polls fail immediately instead of waiting for their timeout. Changes take effect with the next initialization.
+	 * @param failureThreshold the number of consecutive failures, 0 or less to disable the circuit breaker
+	 * @param initialBackoffMillis the time in milliseconds, the pool stops creating instances after the failures
+	 * @param maxBackoffMillis the maximum backoff in milliseconds
+	 */
+	public void setCircuitBreaker(int failureThreshold, long initialBackoffMillis, long maxBackoffMillis) {
+		this.breakerThreshold = Math.max(0, failureThreshold);
+		this.breakerBackoffMillis = Math.max(1, initialBackoffMillis);
+		this.breakerMaxBackoffMillis = maxBackoffMillis;
+	}
+	
+	/**
+	 * Returns, if the pool currently does not create instances, because its supplier keeps failing
+	 * @return <code>true</code>, if the circuit is open
+	 */
+	public boolean isCircuitOpen() {
+		CircuitBreaker breaker = circuitBreaker;
+		return breaker != null && breaker.isOpen();
+	}
+	
+	/**
+	 * Fails a poll immediately, if the pool has no instances and can't create new ones
+	 * @return the exception for the poll or <code>null</code>, if the poll can wait
+	 */
+	private PoolException failFast() {
+		if (isBroken()) {
+			metrics.timedOut();
+			return brokenException();
+		}
+		return null;
+	}
+	
+	/**
+	 * Fails all waiting borrowers, if the pool has no instances and can't create new ones
+	 */
+	private void failWaiters() {
+		PoolWaiter<PooledEntry<T>> waiter;
+		while (isBroken() && (waiter = waiters.poll()) != null) {
+			if (waiter.abort(brokenException())) {
+				metrics.timedOut();
+			}
+		}
+	}
+	
+	/**
+	 * Creates an instance for a borrower, that queued itself after the circuit breaker was closed again by a probe 
+	 */
+	private void fillAfterProbe() {
+		if (circuitBreaker != null && !isCircuitOpen()) {
+			createAsync();
+		}
+	}
+	
+	/**
+	 * Returns, if the pool has no instances and can't create new ones, because its supplier keeps failing
+	 * @return <code>true</code>, if polls must fail immediately
+	 */
+	private boolean isBroken() {
+		return isCircuitOpen() && sizing.getCount() == 0;
+	}
+	
+	/**
+	 * Creates the exception for polls on a pool, that has no instances and can't create new ones
+	 * @return the exception
+	 */
+	private PoolException brokenException() {
+		return new PoolException("Pool[" + name + "] has no instances and does not create new ones, because its supplier keeps failing");
+	}
+	
+	/**
+	 * Registers an instance with the pool
+	 * @param instance the instance
+	 * @return the entry of the instance
+	 */
+	private PooledEntry<T> registerEntry(T instance) {
+		PooledEntry<T> entry = new PooledEntry<T>(instance, nanoClock, false);
+		entries.add(entry);
+		metrics.created();
+		return entry;
+	}
+	
+	/**
+	 * Sets the file and the codec, the pool uses to keep the state of its instances between restarts. 
+	 * The available instances are written to the file on {@link #dispose()}. On {@link #initialize()}, the pool 
+	 * restores its instances from the file, before it falls back to its supplier. Changes take effect with the next initialization.
+	 * @param snapshotFile the snapshot file or <code>null</code> to disable the snapshot
+	 * @param snapshotCodec the codec, that converts the instances to and from their state
+	 */
+	public void setSnapshot(Path snapshotFile, PoolSnapshotCodec<T> snapshotCodec) {
+		this.snapshot = snapshotFile == null || snapshotCodec == null ? null : new PoolSnapshot<T>(name, snapshotFile, snapshotCodec);
+	}
+	
+	/**
+	 * Adds a restored instance to the pool or disposes it, if the pool is already full
+	 * @param instance the restored instance
+	 */
+	private void restoreInstance(T instance) {
+		if (!sizing.reserve()) {
+			discardRestored(instance);
+			return;
+		}
+		PooledEntry<T> entry = new PooledEntry<T>(instance, nanoClock, true);
+		entries.add(entry);
+		metrics.created();
+		available.offer(entry);
+	}
+	
+	/**
+	 * Disposes a restored instance with the codec, that restored it. Restored instances never came from the supplier, 
+	 * so they are not handed to the release consumer.
+	 * @param instance the restored instance
+	 */
+	private void discardRestored(T instance) {
+		PoolSnapshot<T> restoredSnapshot = restoredFrom;
+		if (restoredSnapshot != null) {
+			restoredSnapshot.discard(instance);
+		}
+	}
+	
+	/**
+	 * Writes the available instances to the snapshot file. Borrowed instances are left out, 
+	 * because their state might change in the meantime.
+	 */
+	private void writeSnapshot() {
+		PoolSnapshot<T> currentSnapshot = snapshot;
+		if (currentSnapshot == null) {
+			return;
+		}
+		currentSnapshot.save(entries.snapshot().stream()
+				.filter(entry -> entry.getState() == PooledEntry.AVAILABLE)
+				.map(PooledEntry::getInstance)
+				.collect(Collectors.toList()));
+	}
+	
+	/**
+	 * Removes the instance from the pool and disposes it
+	 * @param entry the entry of the instance
+	 */
+	private void disposeEntry(PooledEntry<T> entry) {
+		if (entry.remove()) {
+			destroyEntry(entry);
+		} else {
+			entries.remove(entry);
+		}
+	}
+	
+	/**
+	 * Disposes the instance of an entry, that is already marked as removed
+	 * @param entry the entry of the instance
+	 */
+	private void destroyEntry(PooledEntry<T> entry) {
+		entries.remove(entry);
+		metrics.destroyed();
+		if (entry.isRestored()) {
+			discardRestored(entry.getInstance());
+		} else {
+			releaseConsumer.accept(entry.getInstance());
+		}
+	}
+	
+	/**
+	 * Sets the clock, that measures borrow, idle and backoff times, so tests can let time pass without waiting. 
+	 * Timeouts of waiting polls always use {@link System#nanoTime()}. Changes take effect with the next initialization.
+	 * @param nanoClock the clock in nanoseconds
+	 */
+	void setNanoClock(LongSupplier nanoClock) {
+		this.nanoClock = nanoClock;
+	}
+	
+	/**
+	 * Returns the current time of the clock of the pool
+	 * @return the time in nanoseconds
+	 */
+	long nanoTime() {
+		return nanoClock.getAsLong();
+	}
+	
+	/**
+	 * Returns the name of the pool
+	 * @return the name of the pool
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.common.jmx.MBeanable#getMBean()
+	 */
+	@Override
+	public PoolMetricsMBean getMBean() {
+		return metrics;
+	}
+	
+	/**
+	 * Returns the engine, that holds the available instances
+	 * @return the engine
+	 */
+	public PoolEngine getEngine() {
+		return engine;
+	}
+	
+	/**
+	 * Returns the mode, the pool uses to take back released instances
+	 * @return the release mode
+	 */
+	public ReleaseMode getReleaseMode() {
+		return releaseMode;
+	}
+	
+	/**
+	 * Sets the mode, the pool uses to take back released instances. Defaults to {@link ReleaseMode#ASYNC}.
+	 * @param releaseMode the release mode
+	 */
+	public void setReleaseMode(ReleaseMode releaseMode) {
+		this.releaseMode = releaseMode == null ? ReleaseMode.ASYNC : releaseMode;
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the pool creates its instances on demand, instead of filling the whole pool on {@link #initialize()}
+	 * @return <code>true</code>, if the pool is elastic
+	 */
+	public boolean isElastic() {
+		return sizing.isElastic();
+	}
+	
+	/**
+	 * Returns the number of idle instances, an elastic pool keeps at least
+	 * @return the minimum number of idle instances or -1, if the pool is not elastic
+	 */
+	public int getMinIdle() {
+		return sizing.getMinIdle();
+	}
+	
+	/**
+	 * Makes the pool elastic. Only the given number of instances is created on {@link #initialize()} and kept idle 
+	 * afterwards. Further instances are created on demand, until the size of the pool is reached. 
+	 * Changes take effect with the next initialization.
+	 * @param minIdle the minimum number of idle instances or a negative value, to fill the whole pool on initialization
+	 */
+	public void setMinIdle(int minIdle) {
+		sizing.setMinIdle(minIdle);
+	}
+	
+	/**
+	 * Returns the maximum number of idle instances of an elastic pool
+	 * @return the maximum number of idle instances or -1, if there is no limit
+	 */
+	public int getMaxIdle() {
+		return sizing.getMaxIdle();
+	}
+	
+	/**
+	 * Sets the maximum number of idle instances of an elastic pool. Surplus idle instances are evicted in the background.
+	 * @param maxIdle the maximum number of idle instances or a negative value for no limit
+	 */
+	public void setMaxIdle(int maxIdle) {
+		sizing.setMaxIdle(maxIdle);
+	}
+	
+	/**
+	 * Returns the time in milliseconds after which idle instances of an elastic pool are evicted
+	 * @return the idle timeout in milliseconds or 0, if idle instances are not evicted
+	 */
+	public long getIdleTimeout() {
+		return sizing.getIdleTimeout();
+	}
+	
+	/**
+	 * Sets the time in milliseconds after which idle instances of an elastic pool are evicted in the background. 
+	 * The pool never evicts below its minimum number of idle instances. Changes take effect with the next initialization.
+	 * @param idleTimeoutMillis the idle timeout in milliseconds or 0, if idle instances should not be evicted
+	 */
+	public void setIdleTimeout(long idleTimeoutMillis) {
+		sizing.setIdleTimeout(idleTimeoutMillis);
+	}
+	
+	/**
+	 * Sets the validator, that tests if a pooled instance is still usable. Instances, that fail the validation 
+	 * or throw an exception, are disposed and replaced asynchronously. When an instance is validated, depends on 
+	 * {@link #setValidateOnBorrow(boolean)}, {@link #setValidateOnReturn(boolean)} and {@link #setValidationInterval(long)}.
+	 * @param validator the validator or <code>null</code> to disable the validation
+	 */
+	public void setValidator(Predicate<? super T> validator) {
+		validation.setValidator(validator);
+	}
+	
+	/**
+	 * Defines, if available instances are validated, before they are handed out. 
+	 * Instances, that are handed over from a release directly to a waiting thread, are not validated again.
+	 * @param validateOnBorrow <code>true</code> to validate on borrow
+	 */
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		validation.setOnBorrow(validateOnBorrow);
+	}
+	
+	/**
+	 * Defines, if instances are validated, when they are released
+	 * @param validateOnReturn <code>true</code> to validate on return
+	 */
+	public void setValidateOnReturn(boolean validateOnReturn) {
+		validation.setOnReturn(validateOnReturn);
+	}
+	
+	/**
+	 * Sets the interval of the background validation of idle instances. Each run validates a batch of the instances, 
+	 * that have not been validated for the longest time. Changes take effect with the next initialization.
+	 * @param validationIntervalMillis the interval in milliseconds or 0, to disable the background validation
+	 */
+	public void setValidationInterval(long validationIntervalMillis) {
+		validation.setInterval(validationIntervalMillis);
+	}
+	
+	/**
+	 * Sets the maximum number of idle instances, the background validation checks per run
+	 * @param validationBatchSize the batch size, must be positive
+	 */
+	public void setValidationBatchSize(int validationBatchSize) {
+		if (validationBatchSize < 1) {
+			throw new IllegalArgumentException("The validation batch size of the Pool[" + name + "] must be positive");
+		}
+		validation.setBatchSize(validationBatchSize);
+	}
+	
+	/**
+	 * Enables a per thread cache in front of the pool. A thread, that releases an instance, keeps it in its cache 
+	 * and gets it back on its next poll, without touching the shared structures of the pool. 
+	 * Cached instances are reclaimed by the pool, when other threads run out of instances, on resize and on dispose. 
+	 * Instances are not cached, while threads wait for instances or if they need to be validated on return. 
+	 * The cache is meant for long living platform threads, as every thread gets its own slot.
+	 * @param threadCacheEnabled <code>true</code> to enable the thread cache
+	 */
+	public void setThreadCacheEnabled(boolean threadCacheEnabled) {
+		threadCache.setEnabled(threadCacheEnabled);
+		if (!threadCacheEnabled) {
+			threadCache.drain(this::returnInstance);
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the per thread cache is enabled
+	 * @return <code>true</code>, if the per thread cache is enabled
+	 */
+	public boolean isThreadCacheEnabled() {
+		return threadCache.isEnabled();
+	}
+	
+	/**
+	 * Sets the maximum time an instance may be borrowed. Instances, that are not released in time, are considered as leaked. 
+	 * A background task logs them, removes them from the pool and hands them to the release consumer, so the pool can replace them. 
+	 * A value of 0 disables the leak detection. Changes take effect with the next initialization.
+	 * @param maxLeaseMillis the maximum lease duration in milliseconds
+	 * @see #setLeakSampleRate(int)
+	 */
+	public void setMaxLeaseDuration(long maxLeaseMillis) {
+		leakDetector.setMaxLeaseDuration(maxLeaseMillis);
+	}
+	
+	/**
+	 * Returns the maximum time an instance may be borrowed
+	 * @return the maximum lease duration in milliseconds or 0, if the leak detection is disabled
+	 */
+	public long getMaxLeaseDuration() {
+		return leakDetector.getMaxLeaseDuration();
+	}
+	
+	/**
+	 * Sets how often the stack trace of a borrowing call is captured, so it can be logged, if the instance leaks. 
+	 * A rate of <code>n</code> captures every n-th borrow on average, 1 captures every borrow and 0 none. 
+	 * Capturing is expensive and only done, if a maximum lease duration is set.
+	 * @param leakSampleRate the sample rate
+	 */
+	public void setLeakSampleRate(int leakSampleRate) {
+		leakDetector.setSampleRate(leakSampleRate);
+	}
+	
+	/**
+	 * Returns the maximum number of instances of the pool
+	 * @return the size of the pool
+	 */
+	public int getPoolSize() {
+		return sizing.getSize();
+	}
+	
+	/**
+	 * Returns the number of instances, that currently exist, including the ones in use
+	 * @return the number of instances
+	 */
+	public int getInstanceCount() {
+		return sizing.getCount();
+	}
+	
+	/**
+	 * Returns the number of available instances. The value is an estimation and should not be used on the hot path.
+	 * @return the number of available instances
+	 */
+	public int getAvailableCount() {
+		return available.size();
+	}
+	
+	/**
+	 * Returns the number of threads and asynchronous polls waiting for an instance. The value is an estimation and should not be used on the hot path.
+	 * @return the number of waiting borrowers
+	 */
+	public int getWaitingCount() {
+		return waiters.size();
+	}
+	
+	/**
+	 * Sets a scheduled executor, that is shared with other pools. It is used for timeouts of asynchronous polls and 
+	 * the background maintenance and will not be shut down by the pool. If none is set, the pool creates its own one, 
+	 * as soon as it needs one, and shuts it down on {@link #dispose()}. Changes take effect with the next initialization.
+	 * @param scheduledExecutor the scheduled executor or <code>null</code>
+	 */
+	public void setScheduledExecutor(ScheduledExecutorService scheduledExecutor) {
+		this.externalScheduledExecutor = scheduledExecutor;
+	}
+	
+	/**
+	 * Sets an executor, that is shared with other pools. It is used to take back released instances, create replacements 
+	 * and dispose removed instances and will not be shut down by the pool. If none is set, the pool creates its own one on {@link #initialize()} 
+	 * and shuts it down on {@link #dispose()}. Changes take effect with the next initialization.
+	 * @param releaseExecutor the executor or <code>null</code>
+	 */
+	public void setReleaseExecutor(ExecutorService releaseExecutor) {
+		this.externalReleaseExecutor = releaseExecutor;
+	}
+	
+	/**
+	 * Runs the work of the own release executor on virtual threads, if the JVM supports them. Otherwise 
+	 * the pool falls back to the configured number of release threads. Changes take effect with the next initialization.
+	 * @param virtualThreads <code>true</code> to use virtual threads
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+	
+	/**
+	 * Creates the own release executor of the pool
+	 * @return the release executor
+	 */
+	private ExecutorService createReleaseExecutor() {
+		ExecutorService executor = virtualThreads ? ExecutorHelper.newVirtualThreadExecutor("Pool-" + name + "-release") : null;
+		if (virtualThreads && executor == null) {
+			logger.fine("Pool[" + name + "] uses platform release threads, because virtual threads are not supported");
+		}
+		return executor != null ? executor : Executors.newFixedThreadPool(releaseThreads, NamedThreadFactory.newNamedFactory("Pool-" + name + "-release"));
+	}
+	
+	/**
+	 * Sets the number of threads of the release executor, the pool creates on {@link #initialize()} 
+	 * and shuts down on {@link #dispose()}. Changes take effect with the next initialization.
+	 * @param releaseThreads the number of threads, must be positive
+	 */
+	public void setReleaseThreads(int releaseThreads) {
+		if (releaseThreads < 1) {
+			throw new IllegalArgumentException("The Pool[" + name + "] needs at least one release thread");
+		}
+		this.releaseThreads = releaseThreads;
+	}
+	
+	private void checkInitializationState() {
+		if(!initialized) {
+			throw new PoolException("The Pool[" + name + "] needs is eather not intialized or already disposed.");
+		}
+	}
+	
+	/**
+	 * Adjusts the current size of the pool. If the size increases, new instances will be added synchronously 
+	 * or in parallel, if warm-up threads are configured. 
+	 * An elastic pool only creates new instances for the threads, that are currently waiting. 
+	 * If the new size is smaller then the current size, this method will return immediately. The next instances 
+	 * that get released, will be disposed until the desired size is reached.  
+	 * @param size
+	 */
+	public void modifyPoolSize(int size) {
+		checkInitializationState();
+		int currentSize = sizing.setSize(size);
+		if (currentSize > size) {
+			threadCache.drain(this::returnInstance);
+		}
+		if(currentSize < size && warmUpExecutor != null && !isElastic()){
+			warmUp = warmUp(size - currentSize);
+		} else if(currentSize < size){
+			while ((!isElastic() || !waiters.isEmpty()) && !isCircuitOpen() && sizing.reserve()) {
+				if (!createSafely()) {
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Changes the size of the pool without blocking the caller. If the size increases, the missing instances 
+	 * are created in the background, on the warm-up threads if configured or on the release executor otherwise. 
+	 * An elastic pool keeps creating its instances on demand. If the size decreases, surplus idle instances are 
+	 * disposed right away and borrowed instances are disposed, when they are released. 
+	 * @param size the new size of the pool, must be positive
+	 * @return the promise resolved with the number of instances created for the new size
+	 */
+	public Promise<Integer> resize(int size) {
+		checkInitializationState();
+		if (size < 1) {
+			throw new IllegalArgumentException("The Pool[" + name + "] needs a size of at least one");
+		}
+		int currentSize = sizing.setSize(size);
+		if (currentSize > size) {
+			threadCache.drain(this::returnInstance);
+			while (sizing.getCount() > size && evictIdleInstance()) {
+				// dispose surplus idle instances, borrowed ones are disposed on release
+			}
+			return promiseFactory.resolved(0);
+		}
+		if (currentSize == size) {
+			return promiseFactory.resolved(0);
+		}
+		Promise<Integer> created;
+		if (isElastic()) {
+			fillWaiters();
+			created = promiseFactory.resolved(0);
+		} else {
+			created = warmUp(size - sizing.getCount(), warmUpExecutor != null ? warmUpExecutor : releaseExecutor);
+		}
+		warmUp = created;
+		return created;
+	}
+	
+	/**
+	 * Sets the order, in which the available instances are handed out. Changes take effect with the next initialization.
+	 * @param selectionStrategy the strategy, <code>null</code> for {@link SelectionStrategy#FIFO}
+	 */
+	public void setSelectionStrategy(SelectionStrategy selectionStrategy) {
+		this.selectionStrategy = selectionStrategy == null ? SelectionStrategy.FIFO : selectionStrategy;
+	}
+	
+	/**
+	 * Returns the order, in which the available instances are handed out
+	 * @return the selection strategy
+	 */
+	public SelectionStrategy getSelectionStrategy() {
+		return selectionStrategy;
+	}
+	
+	/**
+	 * Sets how often an instance can be borrowed. An instance, that reached this number, is disposed on its release 
+	 * and replaced by a new one.
+	 * @param maxUses the maximum number of borrows, 0 or less for no limit
+	 */
+	public void setMaxUses(int maxUses) {
+		validation.setMaxUses(maxUses);
+	}
+	
+	/**
+	 * Returns how often an instance can be borrowed
+	 * @return the maximum number of borrows, 0 for no limit
+	 */
+	public int getMaxUses() {
+		return validation.getMaxUses();
+	}
+	
+	/**
+	 * Sets how long an instance may live. An instance, that reached this age, is disposed on its next release 
+	 * and replaced by a new one.
+	 * @param maxAgeMillis the maximum age in milliseconds, 0 or less for no limit
+	 */
+	public void setMaxAge(long maxAgeMillis) {
+		validation.setMaxAge(maxAgeMillis);
+	}
+	
+	/**
+	 * Returns how long an instance may live
+	 * @return the maximum age in milliseconds, 0 for no limit
+	 */
+	public long getMaxAge() {
+		return validation.getMaxAge();
+	}
+	
+	/**
+	 * Returns the statistics of all instances of the pool. This is meant for monitoring and not for the hot path.
+	 * @return a snapshot of the statistics of every instance
+	 */
+	public List<InstanceStatistics> getInstanceStatistics() {
+		long now = nanoTime();
+		return entries.snapshot().stream().map(entry -> new InstanceStatistics(entry, now)).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Sets a controller, that adjusts the size of the pool to the load. Changes take effect with the next initialization.
+	 * @param sizeController the controller or <code>null</code> to keep the size fixed
+	 */
+	public void setSizeController(PoolSizeController sizeController) {
+		this.sizeController = sizeController;
+	}
+	
+	/**
+	 * Returns the controller, that adjusts the size of the pool
+	 * @return the controller or <code>null</code>
+	 */
+	public PoolSizeController getSizeController() {
+		return sizeController;
+	}
+	
+	/**
+	 * Samples the load and resizes the pool, if the controller decides so
+	 * @param controller the size controller
+	 */
+	private void adjustSize(PoolSizeController controller) {
+		if (!initialized) {
+			return;
+		}
+		try {
+			controller.adjust(this, metrics);
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Pool[" + name + "] could not adjust its size", e);
+		}
+	}
+	
+	/**
+	 * Changes the default timeout of {@link #poll()}, {@link #pollAsync()} and {@link #borrow()}. 
+	 * The change takes effect immediately.
+	 * @param pollTimeoutMillis the timeout in milliseconds
+	 */
+	public void setPollTimeout(long pollTimeoutMillis) {
+		this.pollTimeoutMillis = pollTimeoutMillis;
+	}
+	
+	/**
+	 * Returns the default timeout of {@link #poll()}
+	 * @return the timeout in milliseconds
+	 */
+	public long getPollTimeout() {
+		return pollTimeoutMillis;
+	}
+	
+	/**
+	 * Disposes all Objects and clears the pool. It can be reused by calling initialize again.
+	 */
+	public void dispose() {
+		initialized = false;
+		cancelMaintenance();
+		PoolException disposed = new PoolException("The Pool[" + name + "] was disposed");
+		PoolWaiter<PooledEntry<T>> waiter;
+		while ((waiter = waiters.poll()) != null) {
+			waiter.abort(disposed);
+		}
+		ExecutorHelper.shutdownExecutorServiceWithAwait(warmUpExecutor, RELEASE_SHUTDOWN_MILLIS);
+		warmUpExecutor = null;
+		if (releaseExecutor != externalReleaseExecutor) {
+			ExecutorHelper.shutdownExecutorServiceWithAwait(releaseExecutor, RELEASE_SHUTDOWN_MILLIS);
+		}
+		schedulerLock.lock();
+		try {
+			if (ownScheduler) {
+				ExecutorHelper.shutdownExecutorServiceWithAwait(scheduledExecutor, RELEASE_SHUTDOWN_MILLIS);
+				ownScheduler = false;
+			}
+			scheduledExecutor = null;
+		} finally {
+			schedulerLock.unlock();
+		}
+		writeSnapshot();
+		entries.clear().forEach(this::disposeEntry);
+		available.drain(entry -> {});
+		threadCache.drain(entry -> {});
+		sizing.releaseAll();
+	}
+	
+	/**
+	 * Polls for an Instance. If no instance can be acquired in the defined default timeout, 
+	 * a {@link PoolException} is thrown.
+	 * @return the desired instance
+	 */
+	public T poll() {
+		return poll(pollTimeoutMillis);
+	}
+
+	/**
+	 * Polls for an Instance. If no instance can be acquired before the given timeout is reached, 
+	 * a {@link PoolException} is thrown.
+	 * @param a timeout in milliseconds for the poll
+	 * @return the desired instance
+	 */
+	public T poll(long timeout) {
+		return pollEntry(timeout, PollPriority.NORMAL).getInstance();
+	}
+	
+	/**
+	 * Polls for an Instance with the given priority. Waiting polls are served by priority and then by deadline. 
+	 * If no instance can be acquired before the given timeout is reached, a {@link PoolException} is thrown. 
+	 * A {@link PollPriority#LOW} poll fails immediately, if the pool estimates, that the timeout will be reached.
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @param priority the priority of the poll
+	 * @return the desired instance
+	 */
+	public T poll(long timeout, PollPriority priority) {
+		return pollEntry(timeout, priority).getInstance();
+	}
+	
+	/**
+	 * Polls for an Instance without blocking the calling thread. The promise is resolved, as soon as an instance is available. 
+	 * Waiters of the same priority are served by their deadline. If no instance can be acquired in the defined default timeout, 
+	 * the promise fails with a {@link PoolException}.
+	 * @return the promise of the desired instance
+	 */
+	public Promise<T> pollAsync() {
+		return pollAsync(pollTimeoutMillis);
+	}
+	
+	/**
+	 * Polls for an Instance without blocking the calling thread. The promise is resolved, as soon as an instance is available. 
+	 * Waiters of the same priority are served by their deadline. If no instance can be acquired before the given timeout is reached, 
+	 * the promise fails with a {@link PoolException}.
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @return the promise of the desired instance
+	 */
+	public Promise<T> pollAsync(long timeout) {
+		return pollAsync(timeout, PollPriority.NORMAL);
+	}
+	
+	/**
+	 * Polls for an Instance with the given priority without blocking the calling thread. The promise is resolved, 
+	 * as soon as an instance is available. If no instance can be acquired before the given timeout is reached, 
+	 * the promise fails with a {@link PoolException}. The promise of a {@link PollPriority#LOW} poll fails immediately, 
+	 * if the pool estimates, that the timeout will be reached.
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @param priority the priority of the poll
+	 * @return the promise of the desired instance
+	 */
+	public Promise<T> pollAsync(long timeout, PollPriority priority) {
+		return pollAsync(timeout, priority, timeout);
+	}
+	
+	/**
+	 * Polls for an Instance for a queued task. The task waits up to the given timeout, but is ranked among the other 
+	 * waiting polls like a poll with the poll timeout of the pool. Otherwise the long timeout of a task would put it 
+	 * behind every poll, that arrives later.
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @return the promise of the desired instance
+	 */
+	Promise<T> queueAsync(long timeout) {
+		return pollAsync(timeout, PollPriority.NORMAL, Math.min(timeout, pollTimeoutMillis));
+	}
+	
+	/**
+	 * Polls for an Instance without blocking the calling thread
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @param priority the priority of the poll
+	 * @param rankTimeout the timeout in milliseconds, that ranks the poll among the waiting polls of the same priority
+	 * @return the promise of the desired instance
+	 */
+	private Promise<T> pollAsync(long timeout, PollPriority priority, long rankTimeout) {
+		checkInitializationState();
+		long start = nanoTime();
+		PooledEntry<T> entry = pollThreadCache();
+		if (entry == null) {
+			entry = pollAvailable();
+		}
+		if (entry == null) {
+			entry = createOnDemand();
+		}
+		if (entry == null) {
+			entry = threadCache.steal();
+		}
+		if (entry != null) {
+			borrowed(entry, start);
+			return promiseFactory.resolved(entry.getInstance());
+		}
+		PoolException failure = failFast();
+		if (failure != null) {
+			return promiseFactory.failed(failure);
+		}
+		long now = System.nanoTime();
+		AsyncPoolWaiter<T> waiter = new AsyncPoolWaiter<T>(promiseFactory.deferred(), this, start, priority, 
+				now + TimeUnit.MILLISECONDS.toNanos(timeout), now + TimeUnit.MILLISECONDS.toNanos(rankTimeout));
+		waiters.offer(waiter);
+		// an instance may have been returned, before we queued ourself
+		entry = pollAvailableOrCached();
+		if (entry != null) {
+			if (!waiter.cancel()) {
+				entry.free();
+				returnInstance(entry);
+				return waiter.getPromise();
+			}
+			waiters.remove(waiter);
+			borrowed(entry, start);
+			return promiseFactory.resolved(entry.getInstance());
+		}
+		fillAfterProbe();
+		if (!canMeetDeadline(waiter)) {
+			if (waiter.abort(new PoolException("Pool[" + name + "] can't serve a low priority poll in " + timeout + " ms"))) {
+				waiters.remove(waiter);
+				metrics.timedOut();
+			}
+			return waiter.getPromise();
+		}
+		try {
+			waiter.setTimeout(getScheduledExecutor().schedule(() -> {
+				if (waiter.abort(new PoolException("Pool[" + name + "] couldn't aquire a new instance in " + timeout + " ms"))) {
+					waiters.remove(waiter);
+					metrics.timedOut();
+				}
+			}, timeout, TimeUnit.MILLISECONDS));
+		} catch (RejectedExecutionException e) {
+			if (waiter.abort(new PoolException("The Pool[" + name + "] was disposed"))) {
+				waiters.remove(waiter);
+			}
+		}
+		return waiter.getPromise();
+	}
+	
+	/**
+	 * Borrows an instance as {@link PooledLease}, that returns the instance, when it is closed. 
+	 * If no instance can be acquired in the defined default timeout, a {@link PoolException} is thrown.
+	 * @return the lease of the desired instance
+	 */
+	public PooledLease<T> borrow() {
+		return borrow(pollTimeoutMillis);
+	}
+	
+	/**
+	 * Borrows an instance as {@link PooledLease}, that returns the instance, when it is closed. 
+	 * If no instance can be acquired before the given timeout is reached, a {@link PoolException} is thrown.
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @return the lease of the desired instance
+	 */
+	public PooledLease<T> borrow(long timeout) {
+		return borrow(timeout, PollPriority.NORMAL);
+	}
+	
+	/**
+	 * Borrows an instance with the given priority as {@link PooledLease}, that returns the instance, when it is closed. 
+	 * If no instance can be acquired before the given timeout is reached, a {@link PoolException} is thrown.
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @param priority the priority of the poll
+	 * @return the lease of the desired instance
+	 * @see #poll(long, PollPriority)
+	 */
+	public PooledLease<T> borrow(long timeout, PollPriority priority) {
+		PooledEntry<T> entry = pollEntry(timeout, priority);
+		return new PooledLease<T>(this, entry, entry.getStamp());
+	}
+	
+	/**
+	 * Applies the function to a pooled instance and returns the instance afterwards, even if the function fails. 
+	 * If no instance can be acquired in the defined default timeout, a {@link PoolException} is thrown.
+	 * @param function the function to apply
+	 * @return the result of the function
+	 */
+	public <R> R execute(Function<? super T, ? extends R> function) {
+		return execute(function, pollTimeoutMillis);
+	}
+	
+	/**
+	 * Applies the function to a pooled instance and returns the instance afterwards, even if the function fails. 
+	 * If no instance can be acquired before the given timeout is reached, a {@link PoolException} is thrown.
+	 * @param function the function to apply
+	 * @param timeout a timeout in milliseconds for the poll
+	 * @return the result of the function
+	 */
+	public <R> R execute(Function<? super T, ? extends R> function, long timeout) {
+		// works on the entry directly, so no lease is allocated
+		PooledEntry<T> entry = pollEntry(timeout, PollPriority.NORMAL);
+		int stamp = entry.getStamp();
+		try {
+			return function.apply(entry.getInstance());
+		} finally {
+			releaseEntry(entry, stamp);
+		}
+	}
+	
+	/**
+	 * Polls the given number of instances at once. Either all instances are acquired before the timeout is reached 
+	 * or none and a {@link PoolException} is thrown. Batch polls are served one after another, 
+	 * so concurrent batches can't block each other by holding parts of the pool.
+	 * @param count the number of instances, must not exceed the pool size
+	 * @param timeout a timeout in milliseconds for the whole batch
+	 * @return the desired instances
+	 */
+	public List<T> pollBatch(int count, long timeout) {
+		checkInitializationState();
+		if (count < 0 || count > sizing.getSize()) {
+			throw new IllegalArgumentException("The Pool[" + name + "] can't provide a batch of " + count + " instances");
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		try {
+			if (!batchLock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+				metrics.timedOut();
+				throw new PoolException("Pool[" + name + "] couldn't aquire a batch of " + count + " instances in " + timeout + " ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PoolException("Somewhing went wrong while quireing a batch from the Pool[" + name + "]", e);
+		}
+		List<PooledEntry<T>> batch = new ArrayList<PooledEntry<T>>(count);
+		try {
+			while (batch.size() < count) {
+				batch.add(pollEntry(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())), PollPriority.NORMAL));
+			}
+		} catch (PoolException e) {
+			batch.forEach(entry -> {
+				entry.free();
+				returnInstance(entry);
+			});
+			PoolException failure = new PoolException("Pool[" + name + "] couldn't aquire a batch of " + count + " instances in " + timeout + " ms");
+			failure.initCause(e);
+			throw failure;
+		} finally {
+			batchLock.unlock();
+		}
+		return batch.stream().map(PooledEntry::getInstance).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Takes the next instance and marks it as in use. Waits up to the given timeout, if there is no available instance.
+	 * @param timeout a timeout in milliseconds
+	 * @param priority the priority of the poll
+	 * @return the entry of the instance
+	 */
+	private PooledEntry<T> pollEntry(long timeout, PollPriority priority) {
+		checkInitializationState();
+		long start = nanoTime();
+		PooledEntry<T> entry = pollThreadCache();
+		if (entry == null) {
+			entry = pollAvailable();
+		}
+		if (entry == null) {
+			entry = createOnDemand();
+		}
+		if (entry == null) {
+			entry = threadCache.steal();
+		}
+		if (entry == null) {
+			PoolException failure = failFast();
+			if (failure != null) {
+				throw failure;
+			}
+			entry = awaitInstance(timeout, priority);
+		}
+		borrowed(entry, start);
+		return entry;
+	}
+	
+	/**
+	 * Marks the borrow time of the entry and records the time, the borrower had to wait
+	 * @param entry the borrowed entry
+	 * @param start the start of the poll in nanoseconds
+	 */
+	void borrowed(PooledEntry<T> entry, long start) {
+		long now = nanoTime();
+		entry.setBorrowNanos(now);
+		entry.used();
+		metrics.borrowed(now - start);
+		leakDetector.borrowed(entry);
+	}
+	
+	/**
+	 * Takes the next available instance without waiting and marks it as in use.
+	 * @return the entry or <code>null</code> if there is no available instance
+	 */
+	private PooledEntry<T> pollAvailable() {
+		PooledEntry<T> entry;
+		while ((entry = available.poll()) != null) {
+			if (entry.claim()) {
+				if (!validation.isValidOnBorrow(entry, nanoTime())) {
+					invalidate(entry);
+					continue;
+				}
+				return entry;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Takes the next available instance, including the ones in the thread caches, without waiting and marks it as in use.
+	 * @return the entry or <code>null</code> if there is no available instance
+	 */
+	private PooledEntry<T> pollAvailableOrCached() {
+		PooledEntry<T> entry = pollAvailable();
+		return entry == null ? threadCache.steal() : entry;
+	}
+	
+	/**
+	 * Takes the instance from the cache of the current thread and marks it as in use
+	 * @return the entry or <code>null</code>, if the cache is disabled or empty
+	 */
+	private PooledEntry<T> pollThreadCache() {
+		PooledEntry<T> entry = threadCache.poll();
+		if (entry == null) {
+			return null;
+		}
+		if (!validation.isValidOnBorrow(entry, nanoTime())) {
+			invalidate(entry);
+			return null;
+		}
+		return entry;
+	}
+	
+	/**
+	 * Puts a released instance into the cache of the current thread
+	 * @param entry the entry of the released instance
+	 * @return <code>true</code>, if the instance was cached
+	 */
+	private boolean offerThreadCache(PooledEntry<T> entry) {
+		if (!threadCache.isEnabled() || validation.isOnReturn() || !waiters.isEmpty() || sizing.isOversized() || sizing.isCapacityWanted() 
+				|| validation.isWornOut(entry, nanoTime()) || !threadCache.offer(entry)) {
+			return false;
+		}
+		// a waiter may have queued itself, after we have looked for one
+		if (!waiters.isEmpty()) {
+			PooledEntry<T> cached = threadCache.retract();
+			if (cached != null) {
+				returnInstance(cached);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes an instance, that failed the validation, disposes it and creates a replacement asynchronously
+	 * @param entry the entry of the invalid instance
+	 */
+	private void invalidate(PooledEntry<T> entry) {
+		if (replace(entry)) {
+			metrics.invalidated();
+		}
+	}
+	
+	/**
+	 * Removes an instance, that reached its maximum number of uses or its maximum age, 
+	 * disposes it and creates a replacement asynchronously
+	 * @param entry the entry of the worn out instance
+	 */
+	private void retire(PooledEntry<T> entry) {
+		if (replace(entry)) {
+			metrics.retired();
+		}
+	}
+	
+	/**
+	 * Removes an instance from the pool, disposes it and creates a replacement asynchronously
+	 * @param entry the entry of the instance
+	 * @return <code>true</code>, if the instance was removed, <code>false</code> if it was already removed
+	 */
+	private boolean replace(PooledEntry<T> entry) {
+		if (!entry.remove()) {
+			return false;
+		}
+		replaceRemoved(entry);
+		return true;
+	}
+	
+	/**
+	 * Disposes an instance, that is already marked as removed, and creates a replacement asynchronously
+	 * @param entry the entry of the removed instance
+	 */
+	private void replaceRemoved(PooledEntry<T> entry) {
+		sizing.release(1);
+		executeRelease(() -> destroyEntry(entry));
+		// elastic pools refill their idle instances in the maintenance
+		if (!isElastic() || !waiters.isEmpty()) {
+			createAsync();
+		}
+	}
+	
+	/**
+	 * Queues the current thread as waiter until a released instance is handed over or the timeout is reached.
+	 * @param timeout a timeout in milliseconds
+	 * @param priority the priority of the poll
+	 * @return the entry of the instance, already marked as in use
+	 */
+	private PooledEntry<T> awaitInstance(long timeout, PollPriority priority) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		PoolWaiter<PooledEntry<T>> waiter = new PoolWaiter<PooledEntry<T>>(Thread.currentThread(), priority, deadline);
+		waiters.offer(waiter);
+		// an instance may have been returned, before we queued ourself
+		PooledEntry<T> instance = pollAvailableOrCached();
+		if (instance != null) {
+			if (waiter.cancel()) {
+				waiters.remove(waiter);
+				return instance;
+			}
+			instance.free();
+			returnInstance(instance);
+			instance = waiter.get();
+			if (instance == null) {
+				throw aborted(waiter);
+			}
+			return instance;
+		}
+		fillAfterProbe();
+		if (!canMeetDeadline(waiter)) {
+			if (waiter.cancel()) {
+				waiters.remove(waiter);
+				metrics.timedOut();
+				throw new PoolException("Pool[" + name + "] can't serve a low priority poll in " + timeout + " ms");
+			}
+			instance = waiter.get();
+			if (instance == null) {
+				throw aborted(waiter);
+			}
+			return instance;
+		}
+		try {
+			instance = waiter.await();
+		} catch (InterruptedException e) {
+			if (!waiter.cancel() && waiter.get() != null) {
+				waiter.get().free();
+				returnInstance(waiter.get());
+			}
+			waiters.remove(waiter);
+			Thread.currentThread().interrupt();
+			throw new PoolException("Somewhing went wrong while quireing an Object from the Pool[" + name + "]", e);
+		}
+		if (instance == null) {
+			if (waiter.cancel()) {
+				waiters.remove(waiter);
+				metrics.timedOut();
+				throw new PoolException("Pool[" + name + "] couldn't aquire a new instance in " + timeout + " ms");
+			}
+			instance = waiter.get();
+			if (instance == null) {
+				throw aborted(waiter);
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Returns the exception for a waiter, that was aborted while waiting
+	 * @param waiter the aborted waiter
+	 * @return the reason of the abort or a {@link PoolException}, if the pool was disposed
+	 */
+	private RuntimeException aborted(PoolWaiter<PooledEntry<T>> waiter) {
+		RuntimeException reason = waiter.getAbortReason();
+		return reason != null ? reason : new PoolException("The Pool[" + name + "] was disposed");
+	}
+	
+	/**
+	 * Estimates, if a low priority waiter can be served before its deadline. The expected wait is the number of waiters 
+	 * served before it times the average time an instance is borrowed, divided by the number of instances. 
+	 * Waiters with a higher priority and polls without statistics are always expected to be served.
+	 * @param waiter the queued waiter
+	 * @return <code>false</code>, if the waiter should fail fast
+	 */
+	private boolean canMeetDeadline(PoolWaiter<PooledEntry<T>> waiter) {
+		if (waiter.getPriority() != PollPriority.LOW) {
+			return true;
+		}
+		long holdNanos = metrics.getAverageHoldNanos();
+		if (holdNanos <= 0) {
+			return true;
+		}
+		long expectedNanos = (waiters.countAhead(waiter) + 1) * holdNanos / Math.max(1, sizing.getCount());
+		return System.nanoTime() + expectedNanos - waiter.getDeadlineNanos() <= 0;
+	}
+	
+	/**
+	 * Hands the available instance to the next waiter or puts it back to the available ones
+	 * @param entry the entry of the instance to return
+	 */
+	private void returnInstance(PooledEntry<T> entry) {
+		while (entry != null) {
+			// entries, that have been removed from the pool in the meantime, are dropped
+			if (entry.claim()) {
+				if (handOff(entry)) {
+					return;
+				}
+				entry.free();
+				available.offer(entry);
+			}
+			// a waiter may have queued itself, after we have looked for one
+			entry = waiters.isEmpty() ? null : available.poll();
+		}
+	}
+	
+	/**
+	 * Hands the claimed entry to the next waiter
+	 * @param entry the entry marked as in use
+	 * @return <code>true</code>, if a waiter took the entry
+	 */
+	private boolean handOff(PooledEntry<T> entry) {
+		PoolWaiter<PooledEntry<T>> waiter;
+		while ((waiter = waiters.poll()) != null) {
+			if (waiter.complete(entry)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Retunrs the given instance to the pool. 
+	 * A {@link PoolException} is thrown, if the instance does not belong to this pool or was already released.
+	 * @param instance the instance to release
+	 */
+	public void release(final T instance) {
+		checkInitializationState();
+		// the same object may have several entries, if the supplier hands it out more than once
+		PooledEntry<T> entry = entries.find(instance, PooledEntry::free);
+		if (entry == null) {
+			throw notReleasable(entries.get(instance));
+		}
+		takeBackReleased(entry);
+	}
+	
+	/**
+	 * Returns all given instances to the pool. In {@link ReleaseMode#ASYNC} the instances are taken back by a single release task. 
+	 * A {@link PoolException} is thrown without releasing any instance, if one of the instances does not belong to this pool.
+	 * @param instances the instances to release
+	 */
+	public void releaseAll(Collection<? extends T> instances) {
+		checkInitializationState();
+		for (T instance : instances) {
+			if (entries.get(instance) == null) {
+				throw new PoolException("The instance does not belong to the Pool[" + name + "]");
+			}
+		}
+		List<PooledEntry<T>> released = new ArrayList<PooledEntry<T>>(instances.size());
+		int alreadyReleased = 0;
+		for (T instance : instances) {
+			PooledEntry<T> entry = entries.find(instance, PooledEntry::free);
+			if (entry == null) {
+				alreadyReleased++;
+			} else {
+				metrics.released(nanoTime() - entry.getBorrowNanos());
+				released.add(entry);
+			}
+		}
+		if (releaseMode == ReleaseMode.INLINE) {
+			released.forEach(this::takeBackInline);
+		} else if (!released.isEmpty()) {
+			executeRelease(() -> released.forEach(this::takeBack));
+		}
+		if (alreadyReleased > 0) {
+			throw new PoolException(alreadyReleased + " instances were already released to the Pool[" + name + "]");
+		}
+	}
+	
+	/**
+	 * Returns the instance of the given entry to the pool, if it is still borrowed with the given stamp. 
+	 * A release for a borrow, that is already over, has no effect.
+	 * @param entry the entry of the instance to release
+	 * @param stamp the stamp of the borrow, see {@link PooledEntry#getStamp()}
+	 * @throws PoolException if the instance was removed from the pool during the borrow
+	 */
+	void releaseEntry(PooledEntry<T> entry, int stamp) {
+		checkInitializationState();
+		if (entry.free(stamp)) {
+			takeBackReleased(entry);
+		} else if (entry.isRemovedDuring(stamp)) {
+			throw notReleasable(entry);
+		}
+	}
+	
+	/**
+	 * Creates the exception for a release, that found no borrowed entry
+	 * @param entry an entry of the released instance or <code>null</code>, if the instance does not belong to the pool
+	 * @return the exception to throw
+	 */
+	private PoolException notReleasable(PooledEntry<T> entry) {
+		if (entry == null) {
+			return new PoolException("The instance does not belong to the Pool[" + name + "]");
+		}
+		if (entry.getState() == PooledEntry.REMOVED) {
+			return new PoolException("The instance was removed from the Pool[" + name + "], e.g. because it was not released in time");
+		}
+		return new PoolException("The instance was already released to the Pool[" + name + "]");
+	}
+	
+	/**
+	 * Takes back the instance of an entry, that was just marked as available by its release
+	 * @param entry the entry of the released instance
+	 */
+	private void takeBackReleased(PooledEntry<T> entry) {
+		metrics.released(nanoTime() - entry.getBorrowNanos());
+		if (offerThreadCache(entry)) {
+			return;
+		}
+		if (releaseMode == ReleaseMode.INLINE) {
+			takeBackInline(entry);
+		} else {
+			executeRelease(() -> takeBack(entry));
+		}
+	}
+	
+	/**
+	 * Takes back a released instance on the release executor. The instance is disposed, if the pool needs to shrink.
+	 * @param entry the entry of the released instance
+	 */
+	private void takeBack(PooledEntry<T> entry) {
+		if (sizing.shrink()) {
+			disposeEntry(entry);
+		} else {
+			validateAndReturn(entry);
+		}
+	}
+	
+	/**
+	 * Takes back a released instance on the calling thread. If the pool needs to shrink, 
+	 * the instance is disposed on the release executor.
+	 * @param entry the entry of the released instance
+	 */
+	private void takeBackInline(PooledEntry<T> entry) {
+		if (sizing.shrink()) {
+			executeRelease(() -> disposeEntry(entry));
+		} else {
+			validateAndReturn(entry);
+		}
+	}
+	
+	/**
+	 * Returns a released instance to the pool, if it passes the validation on return
+	 * @param entry the entry of the released instance
+	 */
+	private void validateAndReturn(PooledEntry<T> entry) {
+		if (validation.isWornOut(entry, nanoTime())) {
+			retire(entry);
+		} else if (!validation.isValidOnReturn(entry, nanoTime())) {
+			invalidate(entry);
+		} else {
+			returnInstance(entry);
+		}
+	}
+	
+	/**
+	 * Runs the release work on the release executor or on the calling thread, if the executor is already shut down
+	 * @param releaseTask the work to do
+	 */
+	private void executeRelease(Runnable releaseTask) {
+		try {
+			releaseExecutor.execute(releaseTask);
+		} catch (RejectedExecutionException e) {
+			releaseTask.run();
+		}
+	}
+	
+	/**
+	 * Schedules the maintenance of elastic pools, the background validation, the leak detection and the size controller, if they are enabled
+	 */
+	private void scheduleMaintenance() {
+		if (isElastic()) {
+			long idleTimeoutMillis = sizing.getIdleTimeout();
+			long interval = idleTimeoutMillis > 0 ? Math.max(idleTimeoutMillis / 2, MIN_MAINTENANCE_MILLIS) : DEFAULT_MAINTENANCE_MILLIS;
+			scheduleMaintenance(this::maintain, interval);
+		}
+		long validationInterval = validation.getInterval();
+		if (validationInterval > 0) {
+			scheduleMaintenance(this::validateIdle, Math.max(validationInterval, MIN_MAINTENANCE_MILLIS));
+		}
+		long maxLeaseMillis = leakDetector.getMaxLeaseDuration();
+		if (maxLeaseMillis > 0) {
+			scheduleMaintenance(this::reclaimAbandoned, Math.min(Math.max(maxLeaseMillis / 2, MIN_MAINTENANCE_MILLIS), DEFAULT_MAINTENANCE_MILLIS));
+		}
+		PoolSizeController controller = sizeController;
+		if (controller != null) {
+			controller.reset(metrics);
+			scheduleMaintenance(() -> adjustSize(controller), controller.getInterval());
+		}
+	}
+	
+	/**
+	 * Runs a background task with a fixed delay on the scheduled executor
+	 * @param task the task
+	 * @param interval the delay between two runs in milliseconds
+	 */
+	private void scheduleMaintenance(Runnable task, long interval) {
+		maintenanceFutures.add(getScheduledExecutor().scheduleWithFixedDelay(task, interval, interval, TimeUnit.MILLISECONDS));
+	}
+	
+	/**
+	 * Cancels all background tasks
+	 */
+	private void cancelMaintenance() {
+		maintenanceFutures.forEach(future -> future.cancel(false));
+		maintenanceFutures.clear();
+	}
+	
+	/**
+	 * Removes instances, that are borrowed longer then the maximum lease duration, and creates replacements. 
+	 * The leaked instances are logged together with their borrow site, if it was sampled.
+	 */
+	void reclaimAbandoned() {
+		if (!initialized) {
+			return;
+		}
+		try {
+			leakDetector.reclaim(entries.snapshot(), this::nanoTime, entry -> {
+				metrics.abandoned();
+				replaceRemoved(entry);
+			});
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Leak detection of Pool[" + name + "] failed", e);
+		}
+	}
+	
+	/**
+	 * Validates a batch of the idle instances, that have not been validated for the longest time. 
+	 * An instance is taken out of the pool, while it is validated.
+	 */
+	void validateIdle() {
+		if (!initialized || !validation.isEnabled()) {
+			return;
+		}
+		try {
+			for (PooledEntry<T> entry : validation.selectIdle(entries.snapshot())) {
+				// the instance may have been borrowed in the meantime
+				if (!available.remove(entry) || !entry.claim()) {
+					continue;
+				}
+				if (validation.isValid(entry, nanoTime())) {
+					entry.restore();
+					returnInstance(entry);
+				} else {
+					invalidate(entry);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Validation of Pool[" + name + "] failed", e);
+		}
+	}
+	
+	/**
+	 * Evicts idle instances and creates new ones, if there are less idle instances then desired
+	 */
+	void maintain() {
+		if (!initialized) {
+			return;
+		}
+		try {
+			int idle = evictIdle();
+			// lazy pools are not filled before they are used
+			for (int i = idle; !awaitingFirstBorrow.get() && i < sizing.getMinIdle(); i++) {
+				createAsync();
+			}
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Maintenance of Pool[" + name + "] failed", e);
+		}
+	}
+	
+	/**
+	 * Evicts instances, that are idle for longer then the idle timeout or exceed the maximum number of idle instances. 
+	 * The longest idle instances are evicted first.
+	 * @return the number of remaining idle instances
+	 */
+	private int evictIdle() {
+		return sizing.evictIdle(entries.snapshot(), nanoTime(), entry -> {
+			if (!entry.evict()) {
+				return false;
 			}
+			available.remove(entry);
+			sizing.release(1);
+			executeRelease(() -> destroyEntry(entry));
+			return true;
 		});
 	}
 	
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * Capacity, that is shared between several {@link Pool}s. Each pool acquires a unit for every instance it creates 
+ * and releases it, when the instance is removed.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+interface PoolCapacity {
+	
+	/**
+	 * Acquires a unit of the capacity for a new instance of the given pool
+	 * @param pool the pool, that wants to create an instance
+	 * @return <code>true</code>, if the unit was acquired
+	 */
+	boolean acquire(Pool<?> pool);
+	
+	/**
+	 * Gives back units of the capacity
+	 * @param pool the pool, that has removed the instances
+	 * @param count the number of units
+	 */
+	void release(Pool<?> pool, int count);
+	
+	/**
+	 * Returns <code>true</code>, if the capacity is exhausted and other pools are waiting for it. 
+	 * Only asked by pools, that have no waiters on their own.
+	 * @param pool the pool asking
+	 * @return <code>true</code>, if other pools need capacity
+	 */
+	boolean isContended(Pool<?> pool);
+	
+	/**
+	 * Counts the borrowers of all pools, that wait for an instance
+	 * @param delta the change of the number of waiting borrowers
+	 */
+	void waiting(int delta);
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * The engines a {@link Pool} can use to hold its available instances.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public enum PoolEngine {
+	
+	/**
+	 * A single deque shared by all threads. It keeps the order of the available instances and supports every {@link SelectionStrategy}, but all threads contend for the same lock. This is the default engine.
+	 */
+	DEQUE,
+	
+	/**
+	 * Per-core stripes with a lock-free fast path. A thread works on its own stripe 
+	 * and steals from the other stripes if its own one runs dry. Suited for highly concurrent access.
+	 */
+	STRIPED;
+	
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.gecko.util.pool.exception.PoolException;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * Runs tasks with instances of a {@link Pool}. A task is queued at the pool with {@link Pool#pollAsync(long)}, 
+ * until an instance is available, so no thread is blocked while waiting. As soon as the instance is handed over, 
+ * the task runs with it on the given executor and the instance is released afterwards. This way, the number of 
+ * running tasks never exceeds the number of pooled instances. The executor should therefore be able to run 
+ * as many tasks in parallel as the pool has instances, e.g. a cached or a virtual thread executor.
+ * Tasks wait for an instance with their own queue timeout, that is independent from the poll timeout of the pool. 
+ * Among the waiting polls, a task is ranked like a poll with the poll timeout of the pool, so tasks and polls are 
+ * served in their arrival order, instead of the long queue timeout putting the tasks behind every poll.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class PoolExecutor<T> {
+	
+	private static final Logger logger = Logger.getLogger(PoolExecutor.class.getName());
+	/** 
+	 * Tasks are queued until an instance is available, instead of failing after the short poll timeout of the pool.
+	 * A year in milliseconds, so the deadline in nanoseconds can't overflow.
+	 */
+	public static final long DEFAULT_QUEUE_TIMEOUT = TimeUnit.DAYS.toMillis(365);
+	
+	private final Pool<T> pool;
+	private final Executor executor;
+	private final PromiseFactory promiseFactory;
+	private volatile long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+	
+	/**
+	 * Creates a new instance.
+	 * @param pool the pool, that provides the instances
+	 * @param executor the executor, that runs the tasks
+	 */
+	public PoolExecutor(Pool<T> pool, Executor executor) {
+		if (pool == null || executor == null) {
+			throw new IllegalArgumentException("The PoolExecutor needs a pool and an executor");
+		}
+		this.pool = pool;
+		this.executor = executor;
+		this.promiseFactory = new PromiseFactory(executor);
+	}
+	
+	/**
+	 * Runs the task with an instance of the pool, as soon as one is available. The task waits at most the 
+	 * queue timeout for an instance.
+	 * @param <R> the type of the result
+	 * @param task the task, that gets the instance
+	 * @return the promise resolved with the result of the task. It fails with a {@link PoolException}, if no instance 
+	 * was available in time, or with the exception thrown by the task
+	 */
+	public <R> Promise<R> submit(Function<? super T, ? extends R> task) {
+		return submit(task, queueTimeout);
+	}
+	
+	/**
+	 * Runs the task with an instance of the pool, as soon as one is available
+	 * @param <R> the type of the result
+	 * @param task the task, that gets the instance
+	 * @param timeout the time in milliseconds, the task waits at most for an instance
+	 * @return the promise resolved with the result of the task. It fails with a {@link PoolException}, if no instance 
+	 * was available in time, or with the exception thrown by the task
+	 */
+	public <R> Promise<R> submit(Function<? super T, ? extends R> task, long timeout) {
+		Deferred<R> deferred = promiseFactory.deferred();
+		Promise<T> instance;
+		try {
+			instance = pool.queueAsync(timeout);
+		} catch (PoolException e) {
+			deferred.fail(e);
+			return deferred.getPromise();
+		}
+		instance.onSuccess(object -> dispatch(object, task, deferred))
+				.onFailure(deferred::fail);
+		return deferred.getPromise();
+	}
+	
+	/**
+	 * Runs the task with an instance of the pool, as soon as one is available. The task waits at most the 
+	 * queue timeout for an instance.
+	 * @param task the task, that gets the instance
+	 * @return the promise resolved, when the task is done
+	 */
+	public Promise<Void> execute(Consumer<? super T> task) {
+		return submit(object -> {
+			task.accept(object);
+			return null;
+		});
+	}
+	
+	/**
+	 * Returns the time in milliseconds, a task waits at most for an instance
+	 * @return the queue timeout
+	 */
+	public long getQueueTimeout() {
+		return queueTimeout;
+	}
+	
+	/**
+	 * Sets the time in milliseconds, a task waits at most for an instance. It defaults to {@link #DEFAULT_QUEUE_TIMEOUT}.
+	 * @param queueTimeout the queue timeout
+	 */
+	public void setQueueTimeout(long queueTimeout) {
+		if (queueTimeout < 0 || queueTimeout > DEFAULT_QUEUE_TIMEOUT) {
+			throw new IllegalArgumentException("The queue timeout must be between 0 and " + DEFAULT_QUEUE_TIMEOUT + " ms");
+		}
+		this.queueTimeout = queueTimeout;
+	}
+	
+	/**
+	 * Returns the pool, that provides the instances
+	 * @return the pool
+	 */
+	public Pool<T> getPool() {
+		return pool;
+	}
+	
+	/**
+	 * Runs the task with the borrowed instance on the executor
+	 * @param instance the borrowed instance
+	 * @param task the task
+	 * @param deferred the deferred for the result of the task
+	 */
+	private <R> void dispatch(T instance, Function<? super T, ? extends R> task, Deferred<R> deferred) {
+		try {
+			executor.execute(() -> run(instance, task, deferred));
+		} catch (RejectedExecutionException e) {
+			release(instance);
+			deferred.fail(e);
+		}
+	}
+	
+	/**
+	 * Runs the task and releases the instance, before the result is published, 
+	 * so the next queued task can start as early as possible
+	 * @param instance the borrowed instance
+	 * @param task the task
+	 * @param deferred the deferred for the result of the task
+	 */
+	private <R> void run(T instance, Function<? super T, ? extends R> task, Deferred<R> deferred) {
+		R result;
+		try {
+			result = task.apply(instance);
+		} catch (Throwable t) {
+			release(instance);
+			deferred.fail(t);
+			return;
+		}
+		release(instance);
+		deferred.resolve(result);
+	}
+	
+	private void release(T instance) {
+		try {
+			pool.release(instance);
+		} catch (PoolException e) {
+			logger.log(Level.WARNING, "PoolExecutor could not release an instance to the Pool[" + pool.getName() + "]", e);
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * Defines when a {@link Pool} creates its instances.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public enum PoolInitialization {
+	
+	/**
+	 * The instances are created on {@link Pool#initialize()}, so the first borrows don't pay for their creation. This is the default initialization.
+	 */
+	EAGER,
+	
+	/**
+	 * No instance is created on {@link Pool#initialize()}. Instances are created on demand, when they are borrowed.
+	 */
+	LAZY,
+	
+	/**
+	 * No instance is created on {@link Pool#initialize()}. The first borrow creates its instance on demand 
+	 * and starts to fill the pool in the background.
+	 */
+	LAZY_PREFILL;
+	
+}
@@ -0,0 +1,448 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a {@link Pool}. The counters are striped, so recording does not contend between the borrowing threads. 
+ * Wait times are collected in a histogram with power of two buckets in microseconds, 
+ * where bucket <code>i</code> counts the wait times up to <code>2^i</code> microseconds.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class PoolMetrics implements PoolMetricsMBean {
+	
+	static final int HISTOGRAM_BUCKETS = 32;
+	
+	private final Pool<?> pool;
+	private final LongAdder borrowCount = new LongAdder();
+	private final LongAdder releaseCount = new LongAdder();
+	private final LongAdder timeoutCount = new LongAdder();
+	private final LongAdder createdCount = new LongAdder();
+	private final LongAdder destroyedCount = new LongAdder();
+	private final LongAdder invalidatedCount = new LongAdder();
+	private final LongAdder abandonedCount = new LongAdder();
+	private final LongAdder retiredCount = new LongAdder();
+	private final LongAdder circuitOpenCount = new LongAdder();
+	private final LongAdder sizeIncreaseCount = new LongAdder();
+	private final LongAdder sizeDecreaseCount = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder holdNanos = new LongAdder();
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+	private final LongAdder[] waitHistogram = new LongAdder[HISTOGRAM_BUCKETS];
+	
+	/**
+	 * Creates a new instance.
+	 * @param pool the pool to report
+	 */
+	PoolMetrics(Pool<?> pool) {
+		this.pool = pool;
+		for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+			waitHistogram[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Records a successful borrow
+	 * @param waitNanos the time the borrower had to wait in nanoseconds
+	 */
+	void borrowed(long waitNanos) {
+		borrowCount.increment();
+		this.waitNanos.add(waitNanos);
+		maxWaitNanos.accumulate(waitNanos);
+		waitHistogram[getBucket(waitNanos)].increment();
+	}
+	
+	/**
+	 * Records a borrower, that gave up waiting
+	 */
+	void timedOut() {
+		timeoutCount.increment();
+	}
+	
+	/**
+	 * Records a released instance
+	 * @param holdNanos the time the instance was borrowed in nanoseconds
+	 */
+	void released(long holdNanos) {
+		releaseCount.increment();
+		this.holdNanos.add(holdNanos);
+	}
+	
+	/**
+	 * Returns the average time an instance is borrowed
+	 * @return the average time in nanoseconds or 0, if no instance was released yet
+	 */
+	long getAverageHoldNanos() {
+		long count = releaseCount.sum();
+		return count == 0 ? 0 : holdNanos.sum() / count;
+	}
+	
+	/**
+	 * Records a created instance
+	 */
+	void created() {
+		createdCount.increment();
+	}
+	
+	/**
+	 * Records a disposed instance
+	 */
+	void destroyed() {
+		destroyedCount.increment();
+	}
+	
+	/**
+	 * Records an instance, that failed the validation
+	 */
+	void invalidated() {
+		invalidatedCount.increment();
+	}
+	
+	/**
+	 * Records an instance, that was reclaimed, because it was not released in time
+	 */
+	void abandoned() {
+		abandonedCount.increment();
+	}
+	
+	/**
+	 * Records a change of the pool size by the {@link PoolSizeController}
+	 * @param increased <code>true</code>, if the pool grew
+	 */
+	void resized(boolean increased) {
+		if (increased) {
+			sizeIncreaseCount.increment();
+		} else {
+			sizeDecreaseCount.increment();
+		}
+	}
+	
+	/**
+	 * Returns the summed up wait time of all borrows
+	 * @return the wait time in nanoseconds
+	 */
+	long getWaitNanos() {
+		return waitNanos.sum();
+	}
+	
+	/**
+	 * Records an instance, that was replaced, because it reached its maximum number of uses or its maximum age
+	 */
+	void retired() {
+		retiredCount.increment();
+	}
+	
+	/**
+	 * Records, that the pool stopped creating instances, because its supplier keeps failing
+	 */
+	void circuitOpened() {
+		circuitOpenCount.increment();
+	}
+	
+	static int getBucket(long waitNanos) {
+		long micros = TimeUnit.NANOSECONDS.toMicros(waitNanos);
+		return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getName()
+	 */
+	@Override
+	public String getName() {
+		return pool.getName();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getPoolSize()
+	 */
+	@Override
+	public int getPoolSize() {
+		return pool.getPoolSize();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getInstanceCount()
+	 */
+	@Override
+	public int getInstanceCount() {
+		return pool.getInstanceCount();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getAvailableCount()
+	 */
+	@Override
+	public int getAvailableCount() {
+		return pool.getAvailableCount();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getInUseCount()
+	 */
+	@Override
+	public int getInUseCount() {
+		return Math.max(0, pool.getInstanceCount() - pool.getAvailableCount());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getWaitingCount()
+	 */
+	@Override
+	public int getWaitingCount() {
+		return pool.getWaitingCount();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getUtilization()
+	 */
+	@Override
+	public double getUtilization() {
+		int size = pool.getPoolSize();
+		return size <= 0 ? 0.0 : (double) getInUseCount() / size;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getBorrowCount()
+	 */
+	@Override
+	public long getBorrowCount() {
+		return borrowCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getReleaseCount()
+	 */
+	@Override
+	public long getReleaseCount() {
+		return releaseCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getTimeoutCount()
+	 */
+	@Override
+	public long getTimeoutCount() {
+		return timeoutCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getCreatedCount()
+	 */
+	@Override
+	public long getCreatedCount() {
+		return createdCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getDestroyedCount()
+	 */
+	@Override
+	public long getDestroyedCount() {
+		return destroyedCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getInvalidatedCount()
+	 */
+	@Override
+	public long getInvalidatedCount() {
+		return invalidatedCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getAbandonedCount()
+	 */
+	@Override
+	public long getAbandonedCount() {
+		return abandonedCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getRetiredCount()
+	 */
+	@Override
+	public long getRetiredCount() {
+		return retiredCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getCircuitOpenCount()
+	 */
+	@Override
+	public long getCircuitOpenCount() {
+		return circuitOpenCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#isCircuitOpen()
+	 */
+	@Override
+	public boolean isCircuitOpen() {
+		return pool.isCircuitOpen();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getSizeIncreaseCount()
+	 */
+	@Override
+	public long getSizeIncreaseCount() {
+		return sizeIncreaseCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getSizeDecreaseCount()
+	 */
+	@Override
+	public long getSizeDecreaseCount() {
+		return sizeDecreaseCount.sum();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getAverageWaitTime()
+	 */
+	@Override
+	public double getAverageWaitTime() {
+		long count = borrowCount.sum();
+		return count == 0 ? 0.0 : toMillis(waitNanos.sum()) / count;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getAverageHoldTime()
+	 */
+	@Override
+	public double getAverageHoldTime() {
+		return toMillis(getAverageHoldNanos());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getMaxWaitTime()
+	 */
+	@Override
+	public double getMaxWaitTime() {
+		return toMillis(maxWaitNanos.get());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getWaitTime50thPercentile()
+	 */
+	@Override
+	public double getWaitTime50thPercentile() {
+		return getWaitTimePercentile(0.5);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getWaitTime99thPercentile()
+	 */
+	@Override
+	public double getWaitTime99thPercentile() {
+		return getWaitTimePercentile(0.99);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#getWaitTimeHistogram()
+	 */
+	@Override
+	public long[] getWaitTimeHistogram() {
+		long[] histogram = new long[HISTOGRAM_BUCKETS];
+		for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+			histogram[i] = waitHistogram[i].sum();
+		}
+		return histogram;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.PoolMetricsMBean#resetStatistics()
+	 */
+	@Override
+	public void resetStatistics() {
+		borrowCount.reset();
+		releaseCount.reset();
+		timeoutCount.reset();
+		createdCount.reset();
+		destroyedCount.reset();
+		invalidatedCount.reset();
+		abandonedCount.reset();
+		retiredCount.reset();
+		circuitOpenCount.reset();
+		sizeIncreaseCount.reset();
+		sizeDecreaseCount.reset();
+		waitNanos.reset();
+		holdNanos.reset();
+		maxWaitNanos.reset();
+		for (LongAdder bucket : waitHistogram) {
+			bucket.reset();
+		}
+	}
+	
+	/**
+	 * Estimates a percentile of the wait time as the upper bound of the histogram bucket, it falls into
+	 * @param percentile the percentile between 0 and 1
+	 * @return the estimated wait time in milliseconds
+	 */
+	double getWaitTimePercentile(double percentile) {
+		long[] histogram = getWaitTimeHistogram();
+		long total = 0;
+		for (long count : histogram) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0.0;
+		}
+		long rank = (long) Math.ceil(total * percentile);
+		long seen = 0;
+		for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+			seen += histogram[i];
+			if (seen >= rank) {
+				return (1L << i) / 1000.0;
+			}
+		}
+		return (1L << (HISTOGRAM_BUCKETS - 1)) / 1000.0;
+	}
+	
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+}
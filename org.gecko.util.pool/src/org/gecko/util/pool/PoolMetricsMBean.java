@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.io.IOException;
+
+/**
+ * JMX bean of a {@link Pool}. Wait times are given in milliseconds.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public interface PoolMetricsMBean {
+	
+	String getName() throws IOException;
+	int getPoolSize() throws IOException;
+	int getInstanceCount() throws IOException;
+	int getAvailableCount() throws IOException;
+	int getInUseCount() throws IOException;
+	int getWaitingCount() throws IOException;
+	double getUtilization() throws IOException;
+	long getBorrowCount() throws IOException;
+	long getReleaseCount() throws IOException;
+	long getTimeoutCount() throws IOException;
+	long getCreatedCount() throws IOException;
+	long getDestroyedCount() throws IOException;
+	long getInvalidatedCount() throws IOException;
+	long getAbandonedCount() throws IOException;
+	long getRetiredCount() throws IOException;
+	long getCircuitOpenCount() throws IOException;
+	boolean isCircuitOpen() throws IOException;
+	long getSizeIncreaseCount() throws IOException;
+	long getSizeDecreaseCount() throws IOException;
+	double getAverageWaitTime() throws IOException;
+	double getAverageHoldTime() throws IOException;
+	double getMaxWaitTime() throws IOException;
+	double getWaitTime50thPercentile() throws IOException;
+	double getWaitTime99thPercentile() throws IOException;
+	long[] getWaitTimeHistogram() throws IOException;
+	void resetStatistics() throws IOException;
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.logging.Logger;
+
+/**
+ * Adjusts the size of a {@link Pool} within bounds, using an additive increase, multiplicative decrease rule. 
+ * In every interval, the controller samples the borrows, wait times and timeouts since the last sample. 
+ * If borrowers timed out, are still waiting or waited longer then the target wait time on average, the pool grows by 
+ * the increase step. If the utilization falls below the low watermark and the borrowers got their instances in time, 
+ * the pool shrinks by the decrease factor. The decisions are counted in the {@link PoolMetricsMBean}.
+ * <p>
+ * A controller keeps the state of the last sample and must not be shared between pools.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class PoolSizeController {
+	
+	private static final Logger logger = Logger.getLogger(PoolSizeController.class.getName());
+
+	private static final long DEFAULT_INTERVAL_MILLIS = 1000;
+	
+	private final int minSize;
+	private final int maxSize;
+	private final long targetWaitNanos;
+	private volatile int increaseStep = 1;
+	private volatile double decreaseFactor = 0.75;
+	private volatile double lowUtilization = 0.5;
+	private volatile long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+	
+	private long lastBorrowCount;
+	private long lastWaitNanos;
+	private long lastTimeoutCount;
+	
+	/**
+	 * Creates a new instance.
+	 * @param minSize the minimum size of the pool, must be positive
+	 * @param maxSize the maximum size of the pool, must not be smaller then the minimum
+	 * @param targetWaitMillis the average wait time in milliseconds, the borrowers should not exceed
+	 */
+	public PoolSizeController(int minSize, int maxSize, long targetWaitMillis) {
+		if (minSize < 1 || maxSize < minSize) {
+			throw new IllegalArgumentException("The size bounds " + minSize + " - " + maxSize + " are not valid");
+		}
+		if (targetWaitMillis < 0) {
+			throw new IllegalArgumentException("The target wait time must not be negative");
+		}
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.targetWaitNanos = targetWaitMillis * 1_000_000;
+	}
+	
+	/**
+	 * Sets the number of instances the pool grows by in one interval. The default is 1.
+	 * @param increaseStep the increase step, must be positive
+	 */
+	public void setIncreaseStep(int increaseStep) {
+		if (increaseStep < 1) {
+			throw new IllegalArgumentException("The increase step must be positive");
+		}
+		this.increaseStep = increaseStep;
+	}
+	
+	/**
+	 * Sets the factor the pool size is multiplied with, when the pool shrinks. The default is 0.75.
+	 * @param decreaseFactor the factor, must be between 0 and 1
+	 */
+	public void setDecreaseFactor(double decreaseFactor) {
+		if (decreaseFactor <= 0.0 || decreaseFactor >= 1.0) {
+			throw new IllegalArgumentException("The decrease factor must be between 0 and 1");
+		}
+		this.decreaseFactor = decreaseFactor;
+	}
+	
+	/**
+	 * Sets the utilization, below which the pool shrinks. The default is 0.5.
+	 * @param lowUtilization the utilization, must be between 0 and 1
+	 */
+	public void setLowUtilization(double lowUtilization) {
+		if (lowUtilization < 0.0 || lowUtilization > 1.0) {
+			throw new IllegalArgumentException("The low utilization must be between 0 and 1");
+		}
+		this.lowUtilization = lowUtilization;
+	}
+	
+	/**
+	 * Sets the interval between two samples. The default is one second. 
+	 * Changes take effect with the next initialization of the pool.
+	 * @param intervalMillis the interval in milliseconds, must be positive
+	 */
+	public void setInterval(long intervalMillis) {
+		if (intervalMillis < 1) {
+			throw new IllegalArgumentException("The interval must be positive");
+		}
+		this.intervalMillis = intervalMillis;
+	}
+	
+	/**
+	 * Returns the interval between two samples
+	 * @return the interval in milliseconds
+	 */
+	public long getInterval() {
+		return intervalMillis;
+	}
+	
+	/**
+	 * Returns the minimum size of the pool
+	 * @return the minimum size
+	 */
+	public int getMinSize() {
+		return minSize;
+	}
+	
+	/**
+	 * Returns the maximum size of the pool
+	 * @return the maximum size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * Starts the sampling with the current statistics of the pool
+	 * @param metrics the statistics of the pool
+	 */
+	void reset(PoolMetrics metrics) {
+		lastBorrowCount = metrics.getBorrowCount();
+		lastWaitNanos = metrics.getWaitNanos();
+		lastTimeoutCount = metrics.getTimeoutCount();
+	}
+	
+	/**
+	 * Takes a sample of the pool statistics and resizes the pool, if its size needs to change
+	 * @param pool the pool to adjust
+	 * @param metrics the statistics of the pool
+	 */
+	void adjust(Pool<?> pool, PoolMetrics metrics) {
+		int size = pool.getPoolSize();
+		int newSize = sample(metrics);
+		if (newSize != size) {
+			logger.fine("Pool[" + pool.getName() + "] is resized from " + size + " to " + newSize);
+			metrics.resized(newSize > size);
+			pool.resize(newSize);
+		}
+	}
+	
+	/**
+	 * Takes a sample of the pool statistics and computes the size of the pool for the next interval
+	 * @param metrics the statistics of the pool
+	 * @return the new size of the pool
+	 */
+	int sample(PoolMetrics metrics) {
+		long borrowCount = metrics.getBorrowCount();
+		long waitNanos = metrics.getWaitNanos();
+		long timeoutCount = metrics.getTimeoutCount();
+		long borrows = borrowCount - lastBorrowCount;
+		long waited = waitNanos - lastWaitNanos;
+		long timeouts = timeoutCount - lastTimeoutCount;
+		lastBorrowCount = borrowCount;
+		lastWaitNanos = waitNanos;
+		lastTimeoutCount = timeoutCount;
+		if (borrows < 0 || waited < 0 || timeouts < 0) {
+			// the statistics were reset, the next sample starts from here
+			return metrics.getPoolSize();
+		}
+		return computeSize(metrics.getPoolSize(), metrics.getInUseCount(), metrics.getWaitingCount(), borrows, waited, timeouts);
+	}
+	
+	/**
+	 * Computes the size of the pool from a sample
+	 * @param size the current size of the pool
+	 * @param inUse the number of borrowed instances
+	 * @param waiting the number of waiting borrowers
+	 * @param borrows the number of borrows in the interval
+	 * @param waitNanos the summed up wait time of the borrows in the interval
+	 * @param timeouts the number of borrowers, that timed out in the interval
+	 * @return the new size of the pool within the bounds
+	 */
+	int computeSize(int size, int inUse, int waiting, long borrows, long waitNanos, long timeouts) {
+		long averageWaitNanos = borrows == 0 ? 0 : waitNanos / borrows;
+		int newSize = size;
+		if (timeouts > 0 || waiting > 0 || averageWaitNanos > targetWaitNanos) {
+			newSize = size + increaseStep;
+		} else if (size > 0 && (double) inUse / size < lowUtilization) {
+			newSize = Math.max(inUse, (int) (size * decreaseFactor));
+		}
+		return Math.max(minSize, Math.min(maxSize, newSize));
+	}
+
+}
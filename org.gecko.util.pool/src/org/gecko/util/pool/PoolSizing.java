@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the size of a {@link Pool} and the number of its instances. Room for a new instance is reserved, 
+ * before it is created, and is acquired from the {@link PoolCapacity}, if the pool shares one with other pools. 
+ * An elastic pool keeps only a range of idle instances and evicts the surplus ones.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class PoolSizing {
+	
+	private final Pool<?> pool;
+	private final WaiterQueue<?> waiters;
+	private final AtomicInteger size;
+	private final AtomicInteger count = new AtomicInteger();
+	private volatile PoolCapacity capacity;
+	private volatile int minIdle = -1;
+	private volatile int maxIdle = -1;
+	private volatile long idleTimeoutMillis = 0;
+	
+	/**
+	 * Creates a new instance.
+	 * @param pool the pool, that acquires the shared capacity
+	 * @param waiters the borrowers waiting for an instance of the pool
+	 * @param size the initial size of the pool
+	 */
+	PoolSizing(Pool<?> pool, WaiterQueue<?> waiters, int size) {
+		this.pool = pool;
+		this.waiters = waiters;
+		this.size = new AtomicInteger(size);
+	}
+	
+	/**
+	 * Returns the maximum number of instances
+	 * @return the size of the pool
+	 */
+	int getSize() {
+		return size.get();
+	}
+	
+	/**
+	 * Changes the maximum number of instances
+	 * @param newSize the new size of the pool
+	 * @return the former size of the pool
+	 */
+	int setSize(int newSize) {
+		return size.getAndSet(newSize);
+	}
+	
+	/**
+	 * Returns the number of instances, that currently exist or are reserved
+	 * @return the number of instances
+	 */
+	int getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Returns <code>true</code>, if there are more instances then the size allows, e.g. after the pool was shrunk
+	 * @return <code>true</code>, if the pool has surplus instances
+	 */
+	boolean isOversized() {
+		return count.get() > size.get();
+	}
+	
+	/**
+	 * Returns the number of instances the pool is filled with
+	 * @return the minimum of idle instances for elastic pools and the size otherwise
+	 */
+	int getFillSize() {
+		return isElastic() ? Math.min(minIdle, size.get()) : size.get();
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the pool creates instances on demand and only keeps a minimum of idle instances
+	 * @return <code>true</code>, if the pool is elastic
+	 */
+	boolean isElastic() {
+		return minIdle >= 0;
+	}
+	
+	/**
+	 * Returns the number of idle instances, an elastic pool keeps at least
+	 * @return the minimum number of idle instances or -1, if the pool is not elastic
+	 */
+	int getMinIdle() {
+		return minIdle;
+	}
+	
+	/**
+	 * Sets the number of idle instances, an elastic pool keeps at least
+	 * @param minIdle the minimum number of idle instances or a negative value, if the pool is not elastic
+	 */
+	void setMinIdle(int minIdle) {
+		this.minIdle = minIdle < 0 ? -1 : minIdle;
+	}
+	
+	/**
+	 * Returns the maximum number of idle instances of an elastic pool
+	 * @return the maximum number of idle instances or -1, if there is no limit
+	 */
+	int getMaxIdle() {
+		return maxIdle;
+	}
+	
+	/**
+	 * Sets the maximum number of idle instances of an elastic pool
+	 * @param maxIdle the maximum number of idle instances or a negative value for no limit
+	 */
+	void setMaxIdle(int maxIdle) {
+		this.maxIdle = maxIdle < 0 ? -1 : maxIdle;
+	}
+	
+	/**
+	 * Returns the time after which idle instances of an elastic pool are evicted
+	 * @return the idle timeout in milliseconds or 0, if idle instances are not evicted
+	 */
+	long getIdleTimeout() {
+		return idleTimeoutMillis;
+	}
+	
+	/**
+	 * Sets the time after which idle instances of an elastic pool are evicted
+	 * @param idleTimeoutMillis the idle timeout in milliseconds or 0, if idle instances should not be evicted
+	 */
+	void setIdleTimeout(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = Math.max(0, idleTimeoutMillis);
+	}
+	
+	/**
+	 * Evicts instances, that are idle for longer then the idle timeout or exceed the maximum number of idle instances. 
+	 * The longest idle instances are evicted first, but never below the minimum number of idle instances.
+	 * @param entries all entries of the pool
+	 * @param now the current time in nanoseconds
+	 * @param evictor removes an idle instance from the pool and gives back its reservation, 
+	 * returns <code>false</code>, if the instance was borrowed in the meantime
+	 * @return the number of remaining idle instances
+	 */
+	<T> int evictIdle(Collection<PooledEntry<T>> entries, long now, Predicate<PooledEntry<T>> evictor) {
+		List<PooledEntry<T>> idle = entries.stream()
+				.filter(entry -> entry.getState() == PooledEntry.AVAILABLE)
+				.sorted(Comparator.comparingLong(PooledEntry::getIdleNanos))
+				.collect(Collectors.toList());
+		int idleCount = idle.size();
+		long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+		for (PooledEntry<T> entry : idle) {
+			if (idleCount <= minIdle) {
+				break;
+			}
+			boolean expired = timeoutNanos > 0 && now - entry.getIdleNanos() >= timeoutNanos;
+			boolean surplus = (maxIdle >= 0 && idleCount > maxIdle) || isOversized();
+			if ((expired || surplus) && evictor.test(entry)) {
+				idleCount--;
+			}
+		}
+		return idleCount;
+	}
+	
+	/**
+	 * Sets the capacity, the pool shares with other pools
+	 * @param capacity the shared capacity or <code>null</code>
+	 */
+	void setCapacity(PoolCapacity capacity) {
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Reserves room for a new instance, if the pool has not yet reached its maximum size
+	 * @return <code>true</code>, if an instance can be created
+	 */
+	boolean reserve() {
+		int current;
+		do {
+			current = count.get();
+			if (current >= size.get()) {
+				return false;
+			}
+		} while (!count.compareAndSet(current, current + 1));
+		PoolCapacity currentCapacity = capacity;
+		if (currentCapacity != null && !currentCapacity.acquire(pool)) {
+			count.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Gives back the reservations of instances, that have been removed from the pool
+	 * @param removed the number of removed instances
+	 */
+	void release(int removed) {
+		count.addAndGet(-removed);
+		PoolCapacity currentCapacity = capacity;
+		if (currentCapacity != null && removed > 0) {
+			currentCapacity.release(pool, removed);
+		}
+	}
+	
+	/**
+	 * Gives back all reservations
+	 */
+	void releaseAll() {
+		release(count.get());
+	}
+	
+	/**
+	 * Removes one instance from the count, if the pool is larger then its desired size 
+	 * or another pool needs the shared capacity
+	 * @return <code>true</code>, if the pool was shrunk and the instance needs to be disposed
+	 */
+	boolean shrink() {
+		int current;
+		do {
+			current = count.get();
+			if (current <= 0 || (current <= size.get() && !isCapacityWanted())) {
+				return false;
+			}
+		} while (!count.compareAndSet(current, current - 1));
+		PoolCapacity currentCapacity = capacity;
+		if (currentCapacity != null) {
+			currentCapacity.release(pool, 1);
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns <code>true</code>, if no one waits for an instance of the pool, 
+	 * but the shared capacity is exhausted and needed by other pools
+	 * @return <code>true</code>, if the pool should give back capacity
+	 */
+	boolean isCapacityWanted() {
+		PoolCapacity currentCapacity = capacity;
+		return currentCapacity != null && waiters.isEmpty() && currentCapacity.isContended(pool);
+	}
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes the snapshot file of a {@link Pool}. The file starts with a header of a magic number, 
+ * the format version and the number of instances, followed by the length and the state of every instance. 
+ * The file is written to a temporary file first and moved in place, so a crash never leaves a partial snapshot. 
+ * It is read into a heap buffer, that is reused for every state, so no mapping keeps the file open, when the next snapshot replaces it.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class PoolSnapshot<T> {
+	
+	private static final Logger logger = Logger.getLogger(PoolSnapshot.class.getName());
+	
+	static final int MAGIC = 0x47505331;
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 12;
+	
+	private final String poolName;
+	private final Path file;
+	private final PoolSnapshotCodec<T> codec;
+	
+	/**
+	 * Creates a new instance.
+	 * @param poolName the name of the pool, used in log messages
+	 * @param file the snapshot file
+	 * @param codec the codec, that converts the instances to and from their state
+	 */
+	PoolSnapshot(String poolName, Path file, PoolSnapshotCodec<T> codec) {
+		this.poolName = poolName;
+		this.file = file;
+		this.codec = codec;
+	}
+	
+	/**
+	 * Restores instances from the snapshot file. A missing or broken file is logged and restores nothing.
+	 * @param max the maximum number of instances to restore
+	 * @param consumer receives the restored instances
+	 */
+	void restore(int max, Consumer<T> consumer) {
+		try {
+			int restored = read(max, consumer);
+			logger.fine("Pool[" + poolName + "] restored " + restored + " instances from " + file);
+		} catch (IOException | RuntimeException e) {
+			logger.log(Level.WARNING, "Pool[" + poolName + "] could not restore its instances from " + file, e);
+		}
+	}
+	
+	/**
+	 * Writes the state of the given instances to the snapshot file. A failure is logged.
+	 * @param instances the instances to write
+	 */
+	void save(List<T> instances) {
+		try {
+			int written = write(instances);
+			logger.fine("Pool[" + poolName + "] wrote " + written + " instances to " + file);
+		} catch (IOException | RuntimeException e) {
+			logger.log(Level.WARNING, "Pool[" + poolName + "] could not write its instances to " + file, e);
+		}
+	}
+	
+	/**
+	 * Disposes a restored instance with the codec, that restored it
+	 * @param instance the restored instance
+	 */
+	void discard(T instance) {
+		codec.discard(instance);
+	}
+	
+	/**
+	 * Writes the state of the given instances
+	 * @param instances the instances to write
+	 * @return the number of written instances
+	 * @throws IOException if the file can't be written
+	 */
+	int write(List<T> instances) throws IOException {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(instances.size());
+			header.flip();
+			writeFully(channel, header);
+			ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+			for (T instance : instances) {
+				ByteBuffer state = codec.encode(instance);
+				length.clear();
+				length.putInt(state.remaining()).flip();
+				writeFully(channel, length);
+				writeFully(channel, state);
+			}
+			channel.force(false);
+		}
+		try {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return instances.size();
+	}
+	
+	/**
+	 * Reads instances from the snapshot file
+	 * @param max the maximum number of instances to restore
+	 * @param consumer receives the restored instances
+	 * @return the number of restored instances
+	 * @throws IOException if the file can't be read or is no valid snapshot
+	 */
+	int read(int max, Consumer<T> consumer) throws IOException {
+		if (max <= 0 || !Files.isRegularFile(file)) {
+			return 0;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			if (!readFully(channel, header) || header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("The file " + file + " is no pool snapshot");
+			}
+			int count = Math.min(header.getInt(), max);
+			ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+			ByteBuffer state = ByteBuffer.allocate(0);
+			for (int i = 0; i < count; i++) {
+				length.clear();
+				int size = readFully(channel, length) ? length.getInt() : -1;
+				// the length is checked against the file, before a buffer of that size is allocated
+				if (size < 0 || size > channel.size() - channel.position()) {
+					throw new IOException("The pool snapshot " + file + " is truncated");
+				}
+				if (state.capacity() < size) {
+					state = ByteBuffer.allocate(size);
+				}
+				state.clear();
+				state.limit(size);
+				if (!readFully(channel, state)) {
+					throw new IOException("The pool snapshot " + file + " is truncated");
+				}
+				consumer.accept(codec.decode(state.asReadOnlyBuffer()));
+			}
+			return count;
+		}
+	}
+	
+	/**
+	 * Fills the remaining space of the buffer from the channel and flips it
+	 * @param channel the channel to read from
+	 * @param buffer the buffer to fill
+	 * @return <code>false</code>, if the channel ended before the buffer was filled
+	 * @throws IOException if the channel can't be read
+	 */
+	private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				return false;
+			}
+		}
+		buffer.flip();
+		return true;
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+}
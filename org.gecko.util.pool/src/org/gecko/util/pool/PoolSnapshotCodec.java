@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts pooled instances to and from the binary state, a {@link Pool} keeps in its snapshot file. 
+ * The pool writes the snapshot on {@link Pool#dispose()} and restores its instances from it on {@link Pool#initialize()}, 
+ * before it falls back to its supplier.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public interface PoolSnapshotCodec<T> {
+	
+	/**
+	 * Returns the state of the instance
+	 * @param instance the pooled instance
+	 * @return the state, from the position to the limit of the buffer
+	 * @throws IOException if the instance can't be written
+	 */
+	ByteBuffer encode(T instance) throws IOException;
+	
+	/**
+	 * Creates an instance from its state. The buffer is a read only view of a buffer, the pool reuses for the next state, 
+	 * so the codec has to copy all data, the instance keeps.
+	 * @param state the state, as returned by {@link #encode(Object)}
+	 * @return the restored instance
+	 * @throws IOException if the instance can't be restored
+	 */
+	T decode(ByteBuffer state) throws IOException;
+	
+	/**
+	 * Disposes a restored instance. The pool calls this instead of its release consumer, when it removes an instance, 
+	 * that was created by {@link #decode(ByteBuffer)}, since the supplier never handed out this instance. 
+	 * The default implementation just drops the instance.
+	 * @param instance the restored instance
+	 */
+	default void discard(T instance) {
+	}
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Decides, if the instances of a {@link Pool} are still usable. An instance is invalid, if it fails the validator, 
+ * and worn out, if it reached its maximum number of uses or its maximum age. The pool replaces both.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class PoolValidation<T> {
+	
+	private static final Logger logger = Logger.getLogger(PoolValidation.class.getName());
+	private static final int DEFAULT_BATCH_SIZE = 8;
+	
+	private final String poolName;
+	private volatile Predicate<? super T> validator;
+	private volatile boolean onBorrow = false;
+	private volatile boolean onReturn = false;
+	private volatile long intervalMillis = 0;
+	private volatile int batchSize = DEFAULT_BATCH_SIZE;
+	private volatile int maxUses = 0;
+	private volatile long maxAgeNanos = 0;
+	
+	/**
+	 * Creates a new instance.
+	 * @param poolName the name of the pool, used in log messages
+	 */
+	PoolValidation(String poolName) {
+		this.poolName = poolName;
+	}
+	
+	/**
+	 * Sets the validator
+	 * @param validator the validator or <code>null</code> to disable the validation
+	 */
+	void setValidator(Predicate<? super T> validator) {
+		this.validator = validator;
+	}
+	
+	/**
+	 * Returns <code>true</code>, if a validator is set
+	 * @return <code>true</code>, if instances are validated
+	 */
+	boolean isEnabled() {
+		return validator != null;
+	}
+	
+	/**
+	 * Defines, if available instances are validated, before they are handed out
+	 * @param onBorrow <code>true</code> to validate on borrow
+	 */
+	void setOnBorrow(boolean onBorrow) {
+		this.onBorrow = onBorrow;
+	}
+	
+	/**
+	 * Defines, if instances are validated, when they are released
+	 * @param onReturn <code>true</code> to validate on return
+	 */
+	void setOnReturn(boolean onReturn) {
+		this.onReturn = onReturn;
+	}
+	
+	/**
+	 * Returns <code>true</code>, if instances are validated, when they are released
+	 * @return <code>true</code>, if instances are validated on return
+	 */
+	boolean isOnReturn() {
+		return onReturn;
+	}
+	
+	/**
+	 * Sets the interval of the background validation
+	 * @param intervalMillis the interval in milliseconds or 0, to disable the background validation
+	 */
+	void setInterval(long intervalMillis) {
+		this.intervalMillis = Math.max(0, intervalMillis);
+	}
+	
+	/**
+	 * Returns the interval of the background validation
+	 * @return the interval in milliseconds or 0, if the background validation is disabled
+	 */
+	long getInterval() {
+		return intervalMillis;
+	}
+	
+	/**
+	 * Sets the maximum number of idle instances, the background validation checks per run
+	 * @param batchSize the batch size, must be positive
+	 */
+	void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Sets how often an instance can be borrowed
+	 * @param maxUses the maximum number of borrows, 0 or less for no limit
+	 */
+	void setMaxUses(int maxUses) {
+		this.maxUses = Math.max(0, maxUses);
+	}
+	
+	/**
+	 * Returns how often an instance can be borrowed
+	 * @return the maximum number of borrows, 0 for no limit
+	 */
+	int getMaxUses() {
+		return maxUses;
+	}
+	
+	/**
+	 * Sets how long an instance may live
+	 * @param maxAgeMillis the maximum age in milliseconds, 0 or less for no limit
+	 */
+	void setMaxAge(long maxAgeMillis) {
+		this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxAgeMillis));
+	}
+	
+	/**
+	 * Returns how long an instance may live
+	 * @return the maximum age in milliseconds, 0 for no limit
+	 */
+	long getMaxAge() {
+		return TimeUnit.NANOSECONDS.toMillis(maxAgeNanos);
+	}
+	
+	/**
+	 * Validates the instance of an entry, if a validator is set
+	 * @param entry the entry to validate
+	 * @param now the current time in nanoseconds
+	 * @return <code>true</code>, if the instance is still usable
+	 */
+	boolean isValid(PooledEntry<T> entry, long now) {
+		Predicate<? super T> currentValidator = validator;
+		if (currentValidator == null) {
+			return true;
+		}
+		entry.setValidationNanos(now);
+		try {
+			return currentValidator.test(entry.getInstance());
+		} catch (RuntimeException e) {
+			logger.log(Level.FINE, "Validation of an instance of Pool[" + poolName + "] failed", e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Validates an instance, before it is handed out, if the validation on borrow is enabled
+	 * @param entry the entry to validate
+	 * @param now the current time in nanoseconds
+	 * @return <code>true</code>, if the instance can be handed out
+	 */
+	boolean isValidOnBorrow(PooledEntry<T> entry, long now) {
+		return !onBorrow || isValid(entry, now);
+	}
+	
+	/**
+	 * Validates a released instance, if the validation on return is enabled
+	 * @param entry the entry to validate
+	 * @param now the current time in nanoseconds
+	 * @return <code>true</code>, if the instance can go back to the pool
+	 */
+	boolean isValidOnReturn(PooledEntry<T> entry, long now) {
+		return !onReturn || isValid(entry, now);
+	}
+	
+	/**
+	 * Checks, if an instance has reached its maximum number of uses or its maximum age
+	 * @param entry the entry of the instance
+	 * @param now the current time in nanoseconds
+	 * @return <code>true</code>, if the instance needs to be recycled
+	 */
+	boolean isWornOut(PooledEntry<T> entry, long now) {
+		int uses = maxUses;
+		long maxAge = maxAgeNanos;
+		return (uses > 0 && entry.getUseCount() >= uses) || (maxAge > 0 && now - entry.getCreationNanos() >= maxAge);
+	}
+	
+	/**
+	 * Selects the batch of available instances, the background validation checks next. 
+	 * These are the ones, that have not been validated for the longest time.
+	 * @param entries all entries of the pool
+	 * @return the entries to validate
+	 */
+	List<PooledEntry<T>> selectIdle(Collection<PooledEntry<T>> entries) {
+		return entries.stream()
+				.filter(entry -> entry.getState() == PooledEntry.AVAILABLE)
+				.sorted(Comparator.comparingLong(PooledEntry::getValidationNanos))
+				.limit(batchSize)
+				.collect(Collectors.toList());
+	}
+
+}
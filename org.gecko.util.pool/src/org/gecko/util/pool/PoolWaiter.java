@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread waiting for an instance of a {@link Pool}. A releasing thread hands its instance 
+ * directly to the waiter, if it manages to complete it before the waiter cancels itself. 
+ * Subclasses can react on the hand over instead of parking a thread.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class PoolWaiter<T> {
+	
+	private static final Object CANCELLED = new Object();
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+	
+	private final AtomicReference<Object> state = new AtomicReference<Object>();
+	private final Thread thread;
+	private final PollPriority priority;
+	private final long deadlineNanos;
+	private final long rankNanos;
+	private final long sequence = SEQUENCE.getAndIncrement();
+	
+	/**
+	 * Creates a new instance, that is ranked by its deadline.
+	 * @param thread the waiting thread
+	 * @param priority the priority of the poll
+	 * @param deadlineNanos the deadline in terms of {@link System#nanoTime()}
+	 */
+	PoolWaiter(Thread thread, PollPriority priority, long deadlineNanos) {
+		this(thread, priority, deadlineNanos, deadlineNanos);
+	}
+	
+	/**
+	 * Creates a new instance.
+	 * @param thread the waiting thread
+	 * @param priority the priority of the poll
+	 * @param deadlineNanos the deadline in terms of {@link System#nanoTime()}
+	 * @param rankNanos the time in terms of {@link System#nanoTime()}, waiters of the same priority are ordered by
+	 */
+	PoolWaiter(Thread thread, PollPriority priority, long deadlineNanos, long rankNanos) {
+		this.thread = thread;
+		this.priority = priority == null ? PollPriority.NORMAL : priority;
+		this.deadlineNanos = deadlineNanos;
+		this.rankNanos = rankNanos;
+	}
+	
+	/**
+	 * Returns the priority of the poll
+	 * @return the priority
+	 */
+	PollPriority getPriority() {
+		return priority;
+	}
+	
+	/**
+	 * Returns the deadline of the poll
+	 * @return the deadline in terms of {@link System#nanoTime()}
+	 */
+	long getDeadlineNanos() {
+		return deadlineNanos;
+	}
+	
+	/**
+	 * Orders waiters by their priority, then by their rank, which usually is their deadline, and then by their arrival
+	 * @param other the other waiter
+	 * @return a negative value, if this waiter is more urgent then the other one
+	 */
+	int compareUrgency(PoolWaiter<?> other) {
+		int result = other.priority.compareTo(priority);
+		if (result == 0) {
+			result = Long.signum(rankNanos - other.rankNanos);
+		}
+		if (result == 0) {
+			result = Long.compare(sequence, other.sequence);
+		}
+		return result;
+	}
+	
+	/**
+	 * Hands the instance to the waiter
+	 * @param instance the instance
+	 * @return <code>true</code>, if the waiter took the instance, <code>false</code> if it was already cancelled
+	 */
+	boolean complete(T instance) {
+		if (state.compareAndSet(null, instance)) {
+			onComplete(instance);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Cancels the waiter
+	 * @return <code>true</code>, if the waiter was cancelled, <code>false</code> if it already got an instance
+	 */
+	boolean cancel() {
+		return state.compareAndSet(null, CANCELLED);
+	}
+	
+	/**
+	 * Cancels the waiter and tells it, that it will never get an instance
+	 * @param reason the reason
+	 * @return <code>true</code>, if the waiter was aborted, <code>false</code> if it already got an instance or was cancelled
+	 */
+	boolean abort(RuntimeException reason) {
+		if (state.compareAndSet(null, new Aborted(reason))) {
+			onAbort(reason);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the reason, the waiter was aborted with
+	 * @return the reason or <code>null</code>, if the waiter was not aborted
+	 */
+	RuntimeException getAbortReason() {
+		Object current = state.get();
+		return current instanceof Aborted ? ((Aborted) current).reason : null;
+	}
+	
+	/**
+	 * Called, after the waiter got its instance
+	 * @param instance the instance
+	 */
+	protected void onComplete(T instance) {
+		LockSupport.unpark(thread);
+	}
+	
+	/**
+	 * Called, after the waiter was aborted
+	 * @param reason the reason
+	 */
+	protected void onAbort(RuntimeException reason) {
+		LockSupport.unpark(thread);
+	}
+	
+	/**
+	 * Returns the instance handed to this waiter
+	 * @return the instance or <code>null</code> if the waiter is still waiting or was cancelled
+	 */
+	T get() {
+		return toInstance(state.get());
+	}
+	
+	/**
+	 * Parks the current thread until an instance was handed over, the waiter was aborted or its deadline is reached.
+	 * @return the instance or <code>null</code> if the deadline was reached or the waiter was aborted
+	 * @throws InterruptedException if the waiting thread was interrupted
+	 */
+	T await() throws InterruptedException {
+		while (true) {
+			Object current = state.get();
+			if (current != null) {
+				return toInstance(current);
+			}
+			long remaining = deadlineNanos - System.nanoTime();
+			if (remaining <= 0L) {
+				return null;
+			}
+			LockSupport.parkNanos(this, remaining);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T toInstance(Object current) {
+		return current == CANCELLED || current instanceof Aborted ? null : (T) current;
+	}
+	
+	/**
+	 * State of an aborted waiter
+	 */
+	private static final class Aborted {
+		
+		private final RuntimeException reason;
+		
+		Aborted(RuntimeException reason) {
+			this.reason = reason;
+		}
+		
+	}
+
+}
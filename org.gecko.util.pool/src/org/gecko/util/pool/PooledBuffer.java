@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer of a {@link BufferPool} with a reference count. The buffer starts with one reference and 
+ * goes back to the pool, as soon as the last reference was released. Code, that hands the buffer over to 
+ * other parts of the pipeline, calls {@link #retain()} for each additional owner. It is meant to be used in 
+ * a try-with-resources block:
+ * <pre>
+ * try (PooledBuffer buffer = bufferPool.acquire(4096)) {
+ *     channel.read(buffer.buffer());
+ * }
+ * </pre>
+ * The underlying buffer is reused for the next acquire of the same size class. A buffer must therefore 
+ * not be used anymore after its last reference was released. Every acquire gets its own <code>PooledBuffer</code>, 
+ * so a stale one fails with an {@link IllegalStateException}, instead of releasing the buffer of the next owner.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public final class PooledBuffer implements AutoCloseable {
+	
+	private final BufferPool pool;
+	private final BufferEntry entry;
+	private final int generation;
+	
+	/**
+	 * Creates a new instance for an acquire of the entry. 
+	 * @param pool the pool the buffer belongs to
+	 * @param entry the acquired entry
+	 * @param size the requested size, that becomes the limit of the buffer
+	 */
+	PooledBuffer(BufferPool pool, BufferEntry entry, int size) {
+		this.pool = pool;
+		this.entry = entry;
+		this.generation = entry.open(size);
+	}
+	
+	/**
+	 * Returns the underlying buffer. Position is <code>0</code> and the limit is the requested size after the acquire.
+	 * @return the underlying buffer
+	 * @throws IllegalStateException if all references were already released
+	 */
+	public ByteBuffer buffer() {
+		if (entry.refCount(generation) <= 0) {
+			throw new IllegalStateException("The buffer of the BufferPool[" + pool.getName() + "] is already released");
+		}
+		return entry.getBuffer();
+	}
+	
+	/**
+	 * Returns the capacity of the buffer, which is the size of its size class
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return entry.getBuffer().capacity();
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the buffer lives outside of the heap
+	 * @return <code>true</code> for a direct buffer
+	 */
+	public boolean isDirect() {
+		return entry.getBuffer().isDirect();
+	}
+	
+	/**
+	 * Returns the current number of references
+	 * @return the reference count
+	 */
+	public int refCount() {
+		return entry.refCount(generation);
+	}
+	
+	/**
+	 * Adds a reference to the buffer
+	 * @return this buffer
+	 * @throws IllegalStateException if all references were already released
+	 */
+	public PooledBuffer retain() {
+		if (!entry.retain(generation)) {
+			throw new IllegalStateException("The buffer of the BufferPool[" + pool.getName() + "] is already released");
+		}
+		return this;
+	}
+	
+	/**
+	 * Releases a reference of the buffer. The buffer goes back to the pool with the last reference.
+	 * @return <code>true</code>, if this was the last reference
+	 * @throws IllegalStateException if all references were already released
+	 */
+	public boolean release() {
+		int remaining = entry.release(generation);
+		if (remaining < 0) {
+			throw new IllegalStateException("The buffer of the BufferPool[" + pool.getName() + "] is already released");
+		}
+		if (remaining == 0) {
+			pool.recycle(entry);
+			return true;
+		}
+		return false;
+	}
+	
+	/* 
+	 * (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		release();
+	}
+
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Handle of a single pooled instance. The state of the handle decides, who owns the instance, so 
+ * returning and removing an instance is a single CAS operation. Besides the state, the stamp of the handle 
+ * holds a generation, that is increased with every claim, so a borrow can be told apart from the previous one.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class PooledEntry<T> {
+	
+	static final int AVAILABLE = 0;
+	static final int IN_USE = 1;
+	static final int REMOVED = 2;
+	
+	private static final int STATE_MASK = 3;
+	private static final int GENERATION = 4;
+	
+	private final T instance;
+	private final LongSupplier clock;
+	private final AtomicInteger stamp = new AtomicInteger(AVAILABLE);
+	private volatile long borrowNanos;
+	private volatile Throwable borrowSite;
+	private final long creationNanos;
+	private volatile long idleNanos;
+	private volatile long validationNanos;
+	private volatile int useCount;
+	private final boolean restored;
+	
+	/**
+	 * Creates a new instance.
+	 * @param instance the pooled instance
+	 * @param clock the clock of the pool in nanoseconds
+	 * @param restored <code>true</code>, if the instance was restored from a snapshot instead of created by the supplier
+	 */
+	PooledEntry(T instance, LongSupplier clock, boolean restored) {
+		this.instance = instance;
+		this.clock = clock;
+		this.restored = restored;
+		this.creationNanos = clock.getAsLong();
+		this.idleNanos = creationNanos;
+		this.validationNanos = creationNanos;
+	}
+	
+	/**
+	 * Returns the pooled instance
+	 * @return the pooled instance
+	 */
+	T getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Returns, if the instance was restored from a snapshot instead of created by the supplier
+	 * @return <code>true</code>, if the instance was restored
+	 */
+	boolean isRestored() {
+		return restored;
+	}
+	
+	/**
+	 * Marks an available instance as in use. The borrow time is set, before the instance is marked, 
+	 * so everyone who sees the new generation also sees its borrow time.
+	 * @return <code>true</code>, if the instance was available
+	 */
+	boolean claim() {
+		int current = stamp.get();
+		if ((current & STATE_MASK) != AVAILABLE) {
+			return false;
+		}
+		borrowNanos = clock.getAsLong();
+		return stamp.compareAndSet(current, current + GENERATION - AVAILABLE + IN_USE);
+	}
+	
+	/**
+	 * Marks an instance in use as available again
+	 * @return <code>true</code>, if the instance was in use
+	 */
+	boolean free() {
+		if (transition(IN_USE, AVAILABLE)) {
+			idleNanos = clock.getAsLong();
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Marks the instance as available again, if it is still in use by the borrow of the given stamp
+	 * @param expectedStamp the stamp of the borrow, see {@link #getStamp()}
+	 * @return <code>true</code>, if the instance was in use by this borrow
+	 */
+	boolean free(int expectedStamp) {
+		if ((expectedStamp & STATE_MASK) == IN_USE && stamp.compareAndSet(expectedStamp, (expectedStamp & ~STATE_MASK) | AVAILABLE)) {
+			idleNanos = clock.getAsLong();
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns, if the instance was removed from the pool during the borrow of the given stamp
+	 * @param borrowStamp the stamp of the borrow, see {@link #getStamp()}
+	 * @return <code>true</code>, if the instance was removed in the generation of the borrow
+	 */
+	boolean isRemovedDuring(int borrowStamp) {
+		return stamp.get() == ((borrowStamp & ~STATE_MASK) | REMOVED);
+	}
+	
+	/**
+	 * Marks an instance in use as available again, without touching the idle time. 
+	 * This is meant for maintenance tasks, that claimed an idle instance.
+	 * @return <code>true</code>, if the instance was in use
+	 */
+	boolean restore() {
+		return transition(IN_USE, AVAILABLE);
+	}
+	
+	/**
+	 * Marks an available instance as removed
+	 * @return <code>true</code>, if the instance was available
+	 */
+	boolean evict() {
+		return transition(AVAILABLE, REMOVED);
+	}
+	
+	/**
+	 * Marks the instance as removed from the pool, regardless of its current state
+	 * @return <code>true</code>, if the instance was not already removed
+	 */
+	boolean remove() {
+		int current;
+		do {
+			current = stamp.get();
+			if ((current & STATE_MASK) == REMOVED) {
+				return false;
+			}
+		} while (!stamp.compareAndSet(current, (current & ~STATE_MASK) | REMOVED));
+		return true;
+	}
+	
+	/**
+	 * Marks the instance as removed, if it is still in use by the borrow of the given stamp
+	 * @param expectedStamp the stamp of the borrow, see {@link #getStamp()}
+	 * @return <code>true</code>, if the instance was removed
+	 */
+	boolean abandon(int expectedStamp) {
+		return (expectedStamp & STATE_MASK) == IN_USE && stamp.compareAndSet(expectedStamp, (expectedStamp & ~STATE_MASK) | REMOVED);
+	}
+	
+	/**
+	 * Returns the current stamp, consisting of the generation and the state
+	 * @return the stamp
+	 */
+	int getStamp() {
+		return stamp.get();
+	}
+	
+	/**
+	 * Returns the state of a stamp
+	 * @param stamp the stamp
+	 * @return the state
+	 */
+	static int getState(int stamp) {
+		return stamp & STATE_MASK;
+	}
+	
+	private boolean transition(int from, int to) {
+		int current;
+		do {
+			current = stamp.get();
+			if ((current & STATE_MASK) != from) {
+				return false;
+			}
+		} while (!stamp.compareAndSet(current, (current & ~STATE_MASK) | to));
+		return true;
+	}
+	
+	/**
+	 * Returns the stack trace of the borrowing call, if it was sampled
+	 * @return the borrow site or <code>null</code>
+	 */
+	Throwable getBorrowSite() {
+		return borrowSite;
+	}
+	
+	/**
+	 * Sets the stack trace of the borrowing call
+	 * @param borrowSite the borrow site or <code>null</code>
+	 */
+	void setBorrowSite(Throwable borrowSite) {
+		this.borrowSite = borrowSite;
+	}
+	
+	/**
+	 * Returns the pool clock time of the last borrow
+	 * @return the time of the last borrow
+	 */
+	long getBorrowNanos() {
+		return borrowNanos;
+	}
+	
+	/**
+	 * Sets the pool clock time of the borrow
+	 * @param borrowNanos the time of the borrow
+	 */
+	void setBorrowNanos(long borrowNanos) {
+		this.borrowNanos = borrowNanos;
+	}
+	
+	/**
+	 * Counts a borrow of the instance. Must only be called by the current borrower.
+	 */
+	void used() {
+		useCount++;
+	}
+	
+	/**
+	 * Returns how often the instance was borrowed
+	 * @return the number of borrows
+	 */
+	int getUseCount() {
+		return useCount;
+	}
+	
+	/**
+	 * Returns the pool clock time of the creation of the instance
+	 * @return the time of the creation
+	 */
+	long getCreationNanos() {
+		return creationNanos;
+	}
+	
+	/**
+	 * Returns the pool clock time since the instance is available
+	 * @return the time the instance became available
+	 */
+	long getIdleNanos() {
+		return idleNanos;
+	}
+	
+	/**
+	 * Returns the pool clock time of the last validation or the creation of the instance
+	 * @return the time of the last validation
+	 */
+	long getValidationNanos() {
+		return validationNanos;
+	}
+	
+	/**
+	 * Sets the pool clock time of the last validation
+	 * @param validationNanos the time of the validation
+	 */
+	void setValidationNanos(long validationNanos) {
+		this.validationNanos = validationNanos;
+	}
+	
+	/**
+	 * Returns the current state
+	 * @return the current state
+	 */
+	int getState() {
+		return stamp.get() & STATE_MASK;
+	}
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gecko.util.pool.exception.PoolException;
+
+/**
+ * A borrowed instance of a {@link Pool}, that returns the instance on {@link #close()}. 
+ * It is meant to be used in a try-with-resources block:
+ * <pre>
+ * try (PooledLease&lt;Parser&gt; lease = pool.borrow()) {
+ *     lease.get().parse(input);
+ * }
+ * </pre>
+ * Every borrow gets its own lease, that is stamped with the generation of the borrowed instance. A lease can't be reused 
+ * for later borrows, because its holder may still close it after it was closed. With the stamp, such a stale close 
+ * never affects a later borrow of the same instance. {@link Pool#execute(java.util.function.Function)} does not need a lease at all.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public final class PooledLease<T> implements AutoCloseable {
+	
+	private final Pool<T> pool;
+	private final PooledEntry<T> entry;
+	private final int stamp;
+	private volatile boolean closed = false;
+	
+	/**
+	 * Creates a new open lease for the current borrow of the instance.
+	 * @param pool the pool the instance belongs to
+	 * @param entry the entry of the borrowed instance
+	 * @param stamp the stamp of the borrow, see {@link PooledEntry#getStamp()}
+	 */
+	PooledLease(Pool<T> pool, PooledEntry<T> entry, int stamp) {
+		this.pool = pool;
+		this.entry = entry;
+		this.stamp = stamp;
+	}
+	
+	/**
+	 * Returns the borrowed instance
+	 * @return the borrowed instance
+	 * @throws PoolException if the lease was already closed or the instance was removed from the pool
+	 */
+	public T get() {
+		if (!isOpen()) {
+			throw new PoolException("The lease of the Pool[" + pool.getName() + "] is already closed");
+		}
+		return entry.getInstance();
+	}
+	
+	/**
+	 * Returns the time of the pool clock, usually {@link System#nanoTime()}, of the moment the instance was borrowed
+	 * @return the borrow time in nanoseconds
+	 */
+	public long getBorrowNanos() {
+		return entry.getBorrowNanos();
+	}
+	
+	/**
+	 * Returns for how long the instance is borrowed so far
+	 * @param unit the desired unit
+	 * @return the duration of the lease in the given unit
+	 */
+	public long getDuration(TimeUnit unit) {
+		return unit.convert(pool.nanoTime() - entry.getBorrowNanos(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the instance was not yet returned and is still borrowed by this lease
+	 * @return <code>true</code>, if the lease is still open
+	 */
+	public boolean isOpen() {
+		return !closed && entry.getStamp() == stamp;
+	}
+
+	/**
+	 * Returns the instance to the pool. Closing a lease more than once has no effect.
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			pool.releaseEntry(entry, stamp);
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * Defines on which thread a {@link Pool} takes back released instances.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public enum ReleaseMode {
+	
+	/**
+	 * Every release is handed over to the release executor of the pool, so the releasing thread never runs the validation or the disposal of an instance. This is the default mode.
+	 */
+	ASYNC,
+	
+	/**
+	 * The instance is returned on the calling thread. Only the disposal of instances, 
+	 * that are not needed anymore, is handed over to the release executor of the pool.
+	 */
+	INLINE;
+	
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+/**
+ * Defines which available instance a {@link Pool} hands out next. The strategy applies to the 
+ * {@link PoolEngine#DEQUE} engine. The {@link PoolEngine#STRIPED} engine always prefers the instances 
+ * released on the stripe of the borrowing thread.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public enum SelectionStrategy {
+	
+	/**
+	 * The instance, that is available the longest, is handed out first. This spreads the borrows over all instances 
+	 * and keeps every instance warm. This is the default strategy.
+	 */
+	FIFO,
+	
+	/**
+	 * The instance, that was released last, is handed out first. This favors hot instances, that are still in the 
+	 * CPU caches, and leaves the others idle, so they can be evicted by elastic pools.
+	 */
+	LIFO,
+	
+	/**
+	 * The instance, that was borrowed the least, is handed out first. This balances the wear of the instances.
+	 */
+	LEAST_USED;
+	
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free {@link InstanceStore} that spreads the instances over per-core stripes. 
+ * Each stripe is a fixed range of slots, that are claimed and emptied with CAS operations only, 
+ * so neither offer nor poll allocates. A thread always starts at its own stripe and steals from 
+ * the other stripes, if its own one runs dry. Instances that do not fit into any slot, e.g. after 
+ * the pool has grown, end up in an overflow queue.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class StripedInstanceStore<E> implements InstanceStore<E> {
+	
+	/** 16 references fill a 64 byte cache line with compressed oops */
+	private static final int SLOT_ALIGNMENT = 16;
+	private static final int MAX_STRIPES = 64;
+	
+	private final AtomicReferenceArray<E> slots;
+	private final ConcurrentLinkedQueue<E> overflow = new ConcurrentLinkedQueue<E>();
+	private final int stripeCount;
+	private final int stripeWidth;
+	
+	/**
+	 * Creates a new instance.
+	 * @param capacity the expected number of instances
+	 */
+	StripedInstanceStore(int capacity) {
+		this(Runtime.getRuntime().availableProcessors(), capacity);
+	}
+	
+	/**
+	 * Creates a new instance.
+	 * @param stripes the desired number of stripes, will be rounded up to a power of two
+	 * @param capacity the expected number of instances
+	 */
+	StripedInstanceStore(int stripes, int capacity) {
+		stripeCount = powerOfTwo(Math.min(Math.max(1, stripes), MAX_STRIPES));
+		// instances migrate to the stripes of the releasing threads, so we leave room for that
+		int width = 2 * ((Math.max(1, capacity) + stripeCount - 1) / stripeCount);
+		stripeWidth = ((width + SLOT_ALIGNMENT - 1) / SLOT_ALIGNMENT) * SLOT_ALIGNMENT;
+		slots = new AtomicReferenceArray<E>(stripeCount * stripeWidth);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#offer(java.lang.Object)
+	 */
+	@Override
+	public void offer(E element) {
+		int base = homeStripe() * stripeWidth;
+		for (int i = base; i < base + stripeWidth; i++) {
+			if (slots.get(i) == null && slots.compareAndSet(i, null, element)) {
+				return;
+			}
+		}
+		overflow.offer(element);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#poll()
+	 */
+	@Override
+	public E poll() {
+		int home = homeStripe();
+		for (int s = 0; s < stripeCount; s++) {
+			int base = ((home + s) & (stripeCount - 1)) * stripeWidth;
+			for (int i = base; i < base + stripeWidth; i++) {
+				E element = slots.get(i);
+				if (element != null && slots.compareAndSet(i, element, null)) {
+					return element;
+				}
+			}
+		}
+		return overflow.poll();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(E element) {
+		for (int i = 0; i < slots.length(); i++) {
+			if (slots.get(i) == element && slots.compareAndSet(i, element, null)) {
+				return true;
+			}
+		}
+		return overflow.remove(element);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.gecko.util.pool.InstanceStore#size()
+	 */
+	@Override
+	public int size() {
+		int size = overflow.size();
+		for (int i = 0; i < slots.length(); i++) {
+			if (slots.get(i) != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the number of stripes
+	 * @return the number of stripes
+	 */
+	int getStripeCount() {
+		return stripeCount;
+	}
+	
+	private int homeStripe() {
+		int h = System.identityHashCode(Thread.currentThread());
+		return (h ^ (h >>> 16)) & (stripeCount - 1);
+	}
+	
+	private static int powerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return highest == value ? value : highest << 1;
+	}
+
+}
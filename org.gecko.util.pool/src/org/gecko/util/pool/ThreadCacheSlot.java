@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single slot cache of a thread for the last instance it released to a {@link Pool}. 
+ * The owner takes the instance back without touching the shared structures of the pool. 
+ * Other threads can reclaim the cached instance, e.g. if the pool runs dry, is resized or disposed.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class ThreadCacheSlot<T> {
+	
+	private final AtomicReference<PooledEntry<T>> cached = new AtomicReference<PooledEntry<T>>();
+	private final WeakReference<Thread> owner;
+	
+	/**
+	 * Creates a new instance.
+	 * @param owner the owning thread
+	 */
+	ThreadCacheSlot(Thread owner) {
+		this.owner = new WeakReference<Thread>(owner);
+	}
+	
+	/**
+	 * Puts an entry into the slot
+	 * @param entry the entry to cache
+	 * @return <code>true</code>, if the slot was empty
+	 */
+	boolean offer(PooledEntry<T> entry) {
+		return cached.get() == null && cached.compareAndSet(null, entry);
+	}
+	
+	/**
+	 * Takes the cached entry out of the slot. This is used by the owner as well as for reclaiming the entry.
+	 * @return the cached entry or <code>null</code>
+	 */
+	PooledEntry<T> take() {
+		return cached.get() == null ? null : cached.getAndSet(null);
+	}
+	
+	/**
+	 * Returns <code>true</code>, if the owning thread has terminated
+	 * @return <code>true</code>, if the slot is orphaned
+	 */
+	boolean isOrphaned() {
+		Thread thread = owner.get();
+		return thread == null || !thread.isAlive();
+	}
+
+}
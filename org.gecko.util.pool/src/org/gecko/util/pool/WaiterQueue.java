@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Lock free queue of the {@link PoolWaiter}s of a {@link Pool}, ordered by their urgency. 
+ * The waiter with the highest priority comes first, waiters of the same priority are ordered by their deadline 
+ * and then by their arrival.
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+class WaiterQueue<T> {
+	
+	private final ConcurrentSkipListSet<PoolWaiter<T>> waiters = new ConcurrentSkipListSet<PoolWaiter<T>>(PoolWaiter::compareUrgency);
+	private volatile PoolCapacity capacity;
+	
+	/**
+	 * Sets the shared capacity, that counts the waiters of all pools sharing it
+	 * @param capacity the shared capacity or <code>null</code>
+	 */
+	void setCapacity(PoolCapacity capacity) {
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Adds a waiter to the queue
+	 * @param waiter the waiter
+	 */
+	void offer(PoolWaiter<T> waiter) {
+		if (waiters.add(waiter)) {
+			counted(1);
+		}
+	}
+	
+	/**
+	 * Removes the most urgent waiter from the queue
+	 * @return the waiter or <code>null</code>, if the queue is empty
+	 */
+	PoolWaiter<T> poll() {
+		PoolWaiter<T> waiter = waiters.pollFirst();
+		if (waiter != null) {
+			counted(-1);
+		}
+		return waiter;
+	}
+	
+	/**
+	 * Removes the given waiter from the queue
+	 * @param waiter the waiter
+	 * @return <code>true</code>, if the waiter was queued
+	 */
+	boolean remove(PoolWaiter<T> waiter) {
+		if (waiters.remove(waiter)) {
+			counted(-1);
+			return true;
+		}
+		return false;
+	}
+	
+	private void counted(int delta) {
+		PoolCapacity currentCapacity = capacity;
+		if (currentCapacity != null) {
+			currentCapacity.waiting(delta);
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code>, if no one is waiting
+	 * @return <code>true</code>, if the queue is empty
+	 */
+	boolean isEmpty() {
+		return waiters.isEmpty();
+	}
+	
+	/**
+	 * Returns the number of waiters. The value is an estimation and should not be used on the hot path.
+	 * @return the number of waiters
+	 */
+	int size() {
+		return waiters.size();
+	}
+	
+	/**
+	 * Counts the waiters, that are served before the given one
+	 * @param waiter the waiter
+	 * @return the number of more urgent waiters
+	 */
+	int countAhead(PoolWaiter<T> waiter) {
+		return waiters.headSet(waiter).size();
+	}
+
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.gecko.util.pool.exception.PoolException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class BufferPoolTest {
+	
+	@Test
+	public void testSizeClasses() {
+		BufferPool pool = new BufferPool("TestPool", false, 100, 5000);
+		assertEquals(128, pool.getMinCapacity());
+		assertEquals(8192, pool.getMaxCapacity());
+		
+		PooledBuffer small = pool.acquire(10);
+		assertEquals(128, small.capacity());
+		assertEquals(10, small.buffer().limit());
+		assertEquals(0, small.buffer().position());
+		PooledBuffer medium = pool.acquire(129);
+		assertEquals(256, medium.capacity());
+		PooledBuffer exact = pool.acquire(8192);
+		assertEquals(8192, exact.capacity());
+		PooledBuffer large = pool.acquire(10000);
+		assertEquals(10000, large.capacity());
+		assertEquals(1, pool.getUnpooledCount());
+		
+		small.release();
+		medium.release();
+		exact.release();
+		large.release();
+		pool.dispose();
+	}
+	
+	@Test
+	public void testReuse() throws InterruptedException, ExecutionException {
+		BufferPool pool = new BufferPool("TestPool", false, 64, 1024);
+		PooledBuffer buffer = pool.acquire(100);
+		assertFalse(buffer.isDirect());
+		ByteBuffer first = buffer.buffer();
+		first.putInt(42);
+		buffer.release();
+		
+		// the releasing thread gets its buffer back from its cache
+		PooledBuffer again = pool.acquire(120);
+		assertSame(first, again.buffer());
+		assertEquals(0, again.buffer().position());
+		assertEquals(120, again.buffer().limit());
+		assertEquals(1, pool.getAllocationCount());
+		assertEquals(1, pool.getReuseCount());
+		
+		// a buffer released by another thread is not visible in the cache of this thread
+		CompletableFuture.runAsync(again::release).get();
+		PooledBuffer other = pool.acquire(120);
+		assertNotSame(first, other.buffer());
+		other.release();
+		pool.dispose();
+	}
+	
+	@Test
+	public void testDirectBuffers() throws InterruptedException, ExecutionException {
+		BufferPool pool = new BufferPool("TestPool", true, 64, 1024);
+		PooledBuffer buffer = pool.acquire(100);
+		assertTrue(buffer.isDirect());
+		ByteBuffer first = buffer.buffer();
+		
+		// direct buffers are not cached per thread, so a buffer released by another thread is shared
+		CompletableFuture.runAsync(buffer::release).get();
+		assertEquals(1, pool.getPooledCount());
+		PooledBuffer again = pool.acquire(120);
+		assertSame(first, again.buffer());
+		assertEquals(0, pool.getPooledCount());
+		again.release();
+		assertEquals(1, pool.getPooledCount());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testStaleRelease() {
+		BufferPool pool = new BufferPool("TestPool", false, 64, 1024);
+		PooledBuffer stale = pool.acquire(64);
+		ByteBuffer first = stale.buffer();
+		stale.release();
+		
+		// the next acquire reuses the buffer, but the stale release can't free it
+		PooledBuffer current = pool.acquire(64);
+		assertSame(first, current.buffer());
+		assertThrows(IllegalStateException.class, stale::release);
+		assertThrows(IllegalStateException.class, stale::retain);
+		assertThrows(IllegalStateException.class, stale::buffer);
+		assertEquals(0, stale.refCount());
+		assertEquals(1, current.refCount());
+		
+		PooledBuffer other = pool.acquire(64);
+		assertNotSame(first, other.buffer());
+		assertTrue(current.release());
+		other.release();
+		pool.dispose();
+	}
+	
+	@Test
+	public void testSharedQueue() {
+		BufferPool pool = new BufferPool("TestPool", false, 64, 1024, 2, 0);
+		PooledBuffer[] buffers = new PooledBuffer[4];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = pool.acquire(64);
+		}
+		for (PooledBuffer buffer : buffers) {
+			buffer.release();
+		}
+		// only two buffers are kept
+		assertEquals(2, pool.getPooledCount());
+		pool.acquire(64).release();
+		assertEquals(4, pool.getAllocationCount());
+		assertEquals(1, pool.getReuseCount());
+		pool.dispose();
+		assertEquals(0, pool.getPooledCount());
+	}
+	
+	@Test
+	public void testThreadCacheLimits() throws InterruptedException, ExecutionException {
+		BufferPool pool = new BufferPool("TestPool", false, 64, 1 << 20, 2, 4);
+		PooledBuffer[] buffers = new PooledBuffer[3];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = pool.acquire(64);
+		}
+		for (PooledBuffer buffer : buffers) {
+			buffer.release();
+		}
+		// the cached buffers count towards the limit of their size class
+		assertEquals(2, pool.getPooledCount());
+		pool.acquire(64).release();
+		assertEquals(3, pool.getAllocationCount());
+		assertEquals(1, pool.getReuseCount());
+		
+		// buffers of the large size classes are not cached per thread, so another thread gets them
+		PooledBuffer large = pool.acquire(BufferPool.THREAD_CACHE_MAX_CAPACITY * 2);
+		ByteBuffer first = large.buffer();
+		large.release();
+		assertEquals(3, pool.getPooledCount());
+		assertSame(first, CompletableFuture.supplyAsync(() -> {
+			PooledBuffer other = pool.acquire(BufferPool.THREAD_CACHE_MAX_CAPACITY * 2);
+			ByteBuffer buffer = other.buffer();
+			other.release();
+			return buffer;
+		}).get());
+		pool.dispose();
+		assertEquals(0, pool.getPooledCount());
+	}
+	
+	@Test
+	public void testReferenceCount() {
+		BufferPool pool = new BufferPool("TestPool", false, 64, 1024, 2, 0);
+		PooledBuffer buffer = pool.wrap("hello".getBytes(StandardCharsets.UTF_8));
+		assertEquals(5, buffer.buffer().remaining());
+		assertEquals(1, buffer.refCount());
+		buffer.retain();
+		assertEquals(2, buffer.refCount());
+		
+		assertFalse(buffer.release());
+		assertEquals(0, pool.getPooledCount());
+		try (PooledBuffer closing = buffer) {
+			assertEquals("hello", new String(closing.buffer().array(), 0, 5, StandardCharsets.UTF_8));
+		}
+		assertEquals(0, buffer.refCount());
+		assertEquals(1, pool.getPooledCount());
+		
+		assertThrows(IllegalStateException.class, buffer::buffer);
+		assertThrows(IllegalStateException.class, buffer::retain);
+		assertThrows(IllegalStateException.class, buffer::release);
+		pool.dispose();
+		assertThrows(PoolException.class, () -> pool.acquire(10));
+	}
+	
+	@Test
+	public void testInvalidRange() {
+		assertThrows(IllegalArgumentException.class, () -> new BufferPool("TestPool", false, 0, 1024));
+		assertThrows(IllegalArgumentException.class, () -> new BufferPool("TestPool", false, 1024, 64));
+		BufferPool pool = new BufferPool("TestPool", false, 64, 1024);
+		assertThrows(IllegalArgumentException.class, () -> pool.acquire(-1));
+	}
+
+}
@@ -13,11 +13,23 @@
  */
 package org.gecko.util.pool;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.lang.management.ManagementFactory;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.gecko.util.pool.ConfigurablePoolComponent.PoolConfiguration;
 import org.junit.jupiter.api.BeforeEach;
@@ -94,9 +106,172 @@ public class ConfigurablePoolComponentTest {
 		testPoolComponent.unregisterPool(serviceObj);
 		
 		Mockito.verify(serviceObj, Mockito.times(7)).getService();
-		Mockito.verify(serviceObj, Mockito.times(7)).ungetService(Mockito.anyString());
+		Mockito.verify(serviceObj, Mockito.timeout(1000).times(7)).ungetService(Mockito.anyString());
 	}
 	
+	@Test
+	public void testElasticPoolRegistration() throws ConfigurationException {
+		Mockito.when(config.pool_componentName()).thenReturn("test");
+		Mockito.when(serviceObj.getService()).thenReturn("test");
+		ConfigurablePoolComponent<String> testPoolComponent = new ConfigurablePoolComponent<String>();
+		
+		Map<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("pool.name", "testPool");
+		properties.put("pool.size", 7);
+		properties.put("pool.timeout", 77);
+		properties.put("pool.min", 2);
+		properties.put("pool.max", 10);
+		
+		testPoolComponent.activate(ctx, config);
+		testPoolComponent.registerPool(serviceObj, properties);
+		
+		Mockito.verify(serviceObj, Mockito.times(2)).getService();
+		
+		Pool<String> pool = testPoolComponent.getPoolMap().get("test-testPool");
+		assertTrue(pool.isElastic());
+		assertEquals(10, pool.getPoolSize());
+		
+		testPoolComponent.unregisterPool(serviceObj);
+		
+		Mockito.verify(serviceObj, Mockito.timeout(1000).times(2)).ungetService(Mockito.anyString());
+	}
 	
+	@Test
+	public void testMBeanRegistration() throws ConfigurationException, JMException {
+		Mockito.when(config.pool_componentName()).thenReturn("test");
+		Mockito.when(serviceObj.getService()).thenReturn("test");
+		ConfigurablePoolComponent<String> testPoolComponent = new ConfigurablePoolComponent<String>();
+		
+		Map<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("pool.name", "mbeanPool");
+		properties.put("pool.size", 2);
+		properties.put("pool.timeout", 77);
+		
+		testPoolComponent.activate(ctx, config);
+		testPoolComponent.registerPool(serviceObj, properties);
+		
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = ConfigurablePoolComponent.createObjectName("test-mbeanPool");
+		assertTrue(server.isRegistered(objectName));
+		assertEquals(2, server.getAttribute(objectName, "InstanceCount"));
+		
+		testPoolComponent.unregisterPool(serviceObj);
+		assertFalse(server.isRegistered(objectName));
+	}
+	
+	@Test
+	public void testMBeanNameInUse() throws ConfigurationException, JMException {
+		Mockito.when(config.pool_componentName()).thenReturn("test");
+		Mockito.when(serviceObj.getService()).thenReturn("test");
+		ConfigurablePoolComponent<String> testPoolComponent = new ConfigurablePoolComponent<String>();
+		
+		Map<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("pool.name", "takenPool");
+		properties.put("pool.size", 2);
+		properties.put("pool.timeout", 77);
+		
+		// an MBean, that was registered by someone else, is neither replaced nor removed
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = ConfigurablePoolComponent.createObjectName("test-takenPool");
+		Pool<String> foreign = new Pool<String>("foreign", () -> "foreign", s -> {}, 1, 77);
+		server.registerMBean(foreign.getMBean(), objectName);
+		try {
+			testPoolComponent.activate(ctx, config);
+			testPoolComponent.registerPool(serviceObj, properties);
+			assertNotNull(testPoolComponent.getPoolMap().get("test-takenPool"));
+			assertEquals("foreign", server.getAttribute(objectName, "Name"));
+			
+			testPoolComponent.unregisterPool(serviceObj);
+			assertTrue(server.isRegistered(objectName));
+			assertEquals("foreign", server.getAttribute(objectName, "Name"));
+		} finally {
+			server.unregisterMBean(objectName);
+		}
+	}
+	
+	@Test
+	public void testLazyInitialization() throws ConfigurationException {
+		Mockito.when(config.pool_componentName()).thenReturn("test");
+		Mockito.when(serviceObj.getService()).thenReturn("test");
+		ConfigurablePoolComponent<String> testPoolComponent = new ConfigurablePoolComponent<String>();
+		
+		Map<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("pool.name", "lazyPool");
+		properties.put("pool.size", 3);
+		properties.put("pool.timeout", 77);
+		properties.put("pool.initialization", "lazy");
+		
+		testPoolComponent.activate(ctx, config);
+		testPoolComponent.registerPool(serviceObj, properties);
+		
+		Pool<String> pool = testPoolComponent.getPoolMap().get("test-lazyPool");
+		assertNotNull(pool);
+		assertEquals(PoolInitialization.LAZY, pool.getInitialization());
+		Mockito.verify(serviceObj, Mockito.never()).getService();
+		
+		assertEquals("test", pool.poll());
+		Mockito.verify(serviceObj, Mockito.times(1)).getService();
+		testPoolComponent.deactivate();
+	}
+	
+	@Test
+	public void testAsyncTeardown() throws ConfigurationException, InterruptedException {
+		Mockito.when(config.pool_componentName()).thenReturn("test");
+		Mockito.when(serviceObj.getService()).thenReturn("test");
+		CountDownLatch ungetLatch = new CountDownLatch(1);
+		Mockito.doAnswer(invocation -> ungetLatch.await(5, TimeUnit.SECONDS)).when(serviceObj).ungetService(Mockito.anyString());
+		ConfigurablePoolComponent<String> testPoolComponent = new ConfigurablePoolComponent<String>();
+		
+		Map<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("pool.name", "slowPool");
+		properties.put("pool.size", 2);
+		properties.put("pool.timeout", 77);
+		
+		testPoolComponent.activate(ctx, config);
+		testPoolComponent.registerPool(serviceObj, properties);
+		assertTrue(testPoolComponent.getPoolMap().containsKey("test-slowPool"));
+		
+		// unbinding does not wait for the instances to be released
+		long start = System.currentTimeMillis();
+		testPoolComponent.unregisterPool(serviceObj);
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertFalse(testPoolComponent.getPoolMap().containsKey("test-slowPool"));
+		
+		ungetLatch.countDown();
+		Mockito.verify(serviceObj, Mockito.timeout(1000).times(2)).ungetService(Mockito.anyString());
+		testPoolComponent.deactivate();
+	}
+	
+	@Test
+	public void testModified() throws ConfigurationException {
+		Mockito.when(config.pool_componentName()).thenReturn("test");
+		Mockito.when(config.pool_size()).thenReturn(2);
+		Mockito.when(config.pool_timeout()).thenReturn(77);
+		Mockito.when(serviceObj.getService()).thenReturn("test");
+		ConfigurablePoolComponent<String> testPoolComponent = new ConfigurablePoolComponent<String>();
+		
+		Map<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("pool.name", "livePool");
+		
+		testPoolComponent.activate(ctx, config);
+		testPoolComponent.registerPool(serviceObj, properties);
+		Pool<String> pool = testPoolComponent.getPoolMap().get("test-livePool");
+		assertEquals(2, pool.getPoolSize());
+		Mockito.verify(serviceObj, Mockito.times(2)).getService();
+		
+		PoolConfiguration modifiedConfig = Mockito.mock(PoolConfiguration.class);
+		Mockito.when(modifiedConfig.pool_componentName()).thenReturn("test");
+		Mockito.when(modifiedConfig.pool_size()).thenReturn(4);
+		Mockito.when(modifiedConfig.pool_timeout()).thenReturn(500);
+		testPoolComponent.modified(modifiedConfig);
+		
+		// the pool is kept and grows in the background
+		assertSame(pool, testPoolComponent.getPoolMap().get("test-livePool"));
+		assertEquals(4, pool.getPoolSize());
+		assertEquals(500, pool.getPollTimeout());
+		Mockito.verify(serviceObj, Mockito.timeout(1000).times(4)).getService();
+		Mockito.verify(serviceObj, Mockito.never()).ungetService(Mockito.anyString());
+		testPoolComponent.deactivate();
+	}
 	
 }
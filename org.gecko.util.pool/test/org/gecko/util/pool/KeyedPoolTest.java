@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2012 - 2024 Data In Motion and others.
+ * All rights reserved. 
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     Data In Motion - initial API and implementation
+ */
+package org.gecko.util.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gecko.util.pool.exception.PoolException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 
+ * @author agent
+ * @since 16 Oct 2026
+ */
+public class KeyedPoolTest {
+	
+	@Test
+	public void testNotInitialized() {
+		KeyedPool<String, Object> pool = new KeyedPool<String, Object>("TestPool", k -> new Object(), (k, o) -> {}, 4, 4, 10);
+		assertThrows(PoolException.class, () -> pool.poll("a"));
+	}
+	
+	@Test
+	public void testEvictColdKey() throws InterruptedException {
+		AtomicInteger disposed = new AtomicInteger();
+		KeyedPool<String, Object> pool = new KeyedPool<String, Object>("TestPool", k -> new Object(), (k, o) -> disposed.incrementAndGet(), 4, 4, 10);
+		pool.setReleaseThreads(1);
+		pool.initialize();
+		
+		List<Object> instances = new ArrayList<Object>();
+		for (int i = 0; i < 4; i++) {
+			instances.add(pool.poll("a"));
+		}
+		assertEquals(4, pool.getTotalCount());
+		assertEquals(PoolEngine.STRIPED, pool.getPool("a").getEngine());
+		pool.release("a", instances.remove(0));
+		pool.release("a", instances.remove(0));
+		while (pool.getPool("a").getAvailableCount() < 2) {
+			Thread.sleep(5);
+		}
+		
+		// the hot key takes the capacity of the idle instances of the cold one
+		assertNotNull(pool.poll("b"));
+		assertNotNull(pool.poll("b"));
+		assertEquals(4, pool.getTotalCount());
+		assertEquals(2, pool.getPool("a").getInstanceCount());
+		assertEquals(2, pool.getPool("b").getInstanceCount());
+		assertThrows(PoolException.class, () -> pool.poll("b"));
+		assertThrows(PoolException.class, () -> pool.release("c", new Object()));
+		
+		pool.dispose();
+		assertEquals(0, pool.getTotalCount());
+		assertEquals(6, disposed.get());
+	}
+	
+	@Test
+	public void testCapacityHandOver() throws InterruptedException, ExecutionException, TimeoutException {
+		KeyedPool<String, Object> pool = new KeyedPool<String, Object>("TestPool", k -> new Object(), (k, o) -> {}, 2, 2, 10);
+		pool.initialize();
+		
+		Object first = pool.poll("a");
+		pool.poll("a");
+		CompletableFuture<Object> waiting = CompletableFuture.supplyAsync(() -> pool.poll("b", 2000));
+		while (pool.getWaitingCount() == 0) {
+			Thread.sleep(5);
+		}
+		// the released instance of the cold key is disposed to make room for the waiting one
+		pool.release("a", first);
+		assertNotNull(waiting.get(2, TimeUnit.SECONDS));
+		assertEquals(0, pool.getWaitingCount());
+		assertEquals(1, pool.getPool("a").getInstanceCount());
+		assertTrue(pool.getTotalCount() <= 2);
+		pool.dispose();
+	}
+	
+}
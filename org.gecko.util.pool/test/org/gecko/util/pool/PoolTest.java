@@ -13,16 +13,47 @@
  */
 package org.gecko.util.pool;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import org.gecko.util.common.concurrent.ExecutorHelper;
 import org.gecko.util.pool.exception.PoolException;
 import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Promise;
 
 /**
  * 
@@ -120,4 +151,1330 @@ public class PoolTest {
 		
 	}
 	
+	@Test
+	public void testStripedFiled() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 5, 10, PoolEngine.STRIPED);
+		pool.initialize();
+		
+		Object o = pool.poll();
+		
+		assertNotNull(o);
+		assertNotNull(pool.poll());
+		assertNotNull(pool.poll());
+		assertNotNull(pool.poll());
+		assertNotNull(pool.poll());
+		
+		long start = System.currentTimeMillis();		
+		try {
+			pool.poll();
+			fail("We should not reach this peace of code");
+		} catch (PoolException e) {
+			assertTrue((System.currentTimeMillis() - start) >= 10);
+		}
+		
+		pool.release(o);
+		assertNotNull(pool.poll(1000));
+	}
+	
+	@Test
+	public void testStripedConcurrentAccess() throws InterruptedException {
+		
+		int poolSize = 4;
+		int threads = 16;
+		int rounds = 2000;
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, poolSize, 5000, PoolEngine.STRIPED);
+		pool.initialize();
+		
+		AtomicInteger borrowed = new AtomicInteger();
+		AtomicInteger maxBorrowed = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			executor.execute(() -> {
+				try {
+					for (int i = 0; i < rounds; i++) {
+						Object o = pool.poll();
+						maxBorrowed.accumulateAndGet(borrowed.incrementAndGet(), Math::max);
+						borrowed.decrementAndGet();
+						pool.release(o);
+					}
+				} catch (PoolException e) {
+					errors.incrementAndGet();
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		executor.shutdown();
+		
+		assertTrue(errors.get() == 0);
+		assertTrue(maxBorrowed.get() <= poolSize);
+	}
+	
+	@Test
+	public void testReleaseForeignInstance() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 2, 10);
+		pool.initialize();
+		
+		assertThrows(PoolException.class, ()->pool.release(new Object()));
+	}
+	
+	@Test
+	public void testReleaseTwice() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 2, 10);
+		pool.initialize();
+		
+		Object o = pool.poll();
+		pool.release(o);
+		assertThrows(PoolException.class, ()->pool.release(o));
+	}
+	
+	@Test
+	public void testDuplicateInstances() {
+		
+		// like a singleton service, the supplier hands out the same object every time
+		String shared = "test";
+		Pool<String> pool = new Pool<String>("TestPool", () -> shared, o -> {}, 3, 10);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		assertEquals(3, pool.getInstanceCount());
+		
+		for (int round = 0; round < 2; round++) {
+			List<String> borrowed = new LinkedList<>();
+			for (int i = 0; i < 3; i++) {
+				borrowed.add(pool.poll());
+			}
+			assertEquals(0, pool.getAvailableCount());
+			borrowed.forEach(pool::release);
+			// every release gives back one of the borrowed entries, none leaks
+			assertEquals(3, pool.getAvailableCount());
+		}
+		assertThrows(PoolException.class, () -> pool.release(shared));
+		
+		pool.releaseAll(pool.pollBatch(2, 10));
+		assertEquals(3, pool.getAvailableCount());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testInlineRelease() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 1, 10);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		for (int i = 0; i < 100; i++) {
+			Object o = pool.poll(0);
+			pool.release(o);
+		}
+		pool.dispose();
+	}
+	
+	@Test
+	public void testInlineReleaseDisposesAsync() throws InterruptedException {
+		
+		CountDownLatch disposed = new CountDownLatch(1);
+		AtomicInteger disposeThread = new AtomicInteger();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {
+			disposeThread.set(Thread.currentThread().getName().startsWith("Pool-TestPool-release") ? 1 : 2);
+			disposed.countDown();
+		}, 2, 10);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		Object o = pool.poll();
+		pool.modifyPoolSize(1);
+		pool.release(o);
+		
+		assertTrue(disposed.await(1, TimeUnit.SECONDS));
+		assertTrue(disposeThread.get() == 1);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testBorrowLease() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 1, 10);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		Object instance;
+		PooledLease<Object> first;
+		try (PooledLease<Object> lease = pool.borrow()) {
+			first = lease;
+			instance = lease.get();
+			assertNotNull(instance);
+			assertTrue(lease.isOpen());
+			assertTrue(lease.getDuration(TimeUnit.NANOSECONDS) >= 0);
+			assertThrows(PoolException.class, ()->pool.poll());
+		}
+		assertFalse(first.isOpen());
+		assertThrows(PoolException.class, ()->first.get());
+		// closing twice has no effect
+		first.close();
+		
+		try (PooledLease<Object> lease = pool.borrow()) {
+			assertNotSame(first, lease);
+			assertSame(instance, lease.get());
+			// a stale close does not release the instance of the current borrow
+			first.close();
+			assertTrue(lease.isOpen());
+			assertSame(instance, lease.get());
+			assertThrows(PoolException.class, ()->pool.poll());
+		}
+		pool.dispose();
+	}
+	
+	@Test
+	public void testExecute() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 1, 10);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		assertEquals("result", pool.execute(o -> "result"));
+		assertThrows(IllegalStateException.class, ()->pool.execute(o -> {
+			throw new IllegalStateException("fail");
+		}));
+		// the instance came back despite the failure
+		assertNotNull(pool.poll());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testPollAsync() throws InvocationTargetException, InterruptedException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 1, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		Promise<Object> first = pool.pollAsync();
+		assertTrue(first.isDone());
+		Object instance = first.getValue();
+		
+		Promise<Object> second = pool.pollAsync();
+		Promise<Object> third = pool.pollAsync();
+		assertFalse(second.isDone());
+		assertFalse(third.isDone());
+		
+		pool.release(instance);
+		// the first waiter gets the instance directly
+		assertSame(instance, second.getValue());
+		assertFalse(third.isDone());
+		
+		pool.release(instance);
+		assertSame(instance, third.getValue());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testPollAsyncTimeout() throws InterruptedException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> {}, 1, 10);
+		pool.initialize();
+		
+		assertNotNull(pool.poll());
+		Promise<Object> promise = pool.pollAsync();
+		assertTrue(promise.getFailure() instanceof PoolException);
+		
+		Promise<Object> disposed = pool.pollAsync(10000);
+		pool.dispose();
+		assertTrue(disposed.getFailure() instanceof PoolException);
+	}
+	
+	@Test
+	public void testElasticGrowth() {
+		
+		AtomicInteger created = new AtomicInteger();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			created.incrementAndGet();
+			return new Object();
+		}, o -> {}, 3, 10);
+		pool.setMinIdle(1);
+		pool.initialize();
+		
+		assertTrue(pool.isElastic());
+		assertEquals(1, created.get());
+		
+		assertNotNull(pool.poll());
+		assertNotNull(pool.poll());
+		assertNotNull(pool.poll());
+		assertEquals(3, created.get());
+		assertEquals(3, pool.getInstanceCount());
+		assertThrows(PoolException.class, ()->pool.poll());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testElasticIdleEviction() throws InterruptedException {
+		
+		CountDownLatch disposed = new CountDownLatch(3);
+		ManualScheduler scheduler = new ManualScheduler();
+		AtomicLong clock = new AtomicLong();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> new Object(), o -> disposed.countDown(), 4, 10);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setMinIdle(1);
+		pool.setIdleTimeout(20);
+		pool.setScheduledExecutor(scheduler);
+		pool.setNanoClock(clock::get);
+		pool.initialize();
+		
+		List<Object> objects = new LinkedList<>();
+		for (int i = 0; i < 4; i++) {
+			objects.add(pool.poll());
+		}
+		objects.forEach(pool::release);
+		assertEquals(4, pool.getInstanceCount());
+		
+		// nothing is evicted, before the idle timeout has passed
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(19));
+		scheduler.runPeriodicTasks();
+		assertEquals(4, pool.getInstanceCount());
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		scheduler.runPeriodicTasks();
+		assertEquals(1, pool.getInstanceCount());
+		assertTrue(disposed.await(5, TimeUnit.SECONDS));
+		assertNotNull(pool.poll());
+		pool.dispose();
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testValidateOnBorrow() throws InterruptedException {
+		
+		AtomicInteger created = new AtomicInteger();
+		CountDownLatch disposed = new CountDownLatch(1);
+		Pool<AtomicBoolean> pool = new Pool<AtomicBoolean>("TestPool", () -> {
+			created.incrementAndGet();
+			return new AtomicBoolean(true);
+		}, o -> disposed.countDown(), 1, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setValidator(AtomicBoolean::get);
+		pool.setValidateOnBorrow(true);
+		pool.initialize();
+		
+		AtomicBoolean instance = pool.poll();
+		instance.set(false);
+		pool.release(instance);
+		
+		AtomicBoolean replacement = pool.poll();
+		assertTrue(replacement != instance);
+		assertTrue(replacement.get());
+		assertEquals(2, created.get());
+		assertTrue(disposed.await(1, TimeUnit.SECONDS));
+		pool.dispose();
+	}
+	
+	@Test
+	public void testValidateOnReturn() throws InterruptedException {
+		
+		CountDownLatch disposed = new CountDownLatch(1);
+		Pool<AtomicBoolean> pool = new Pool<AtomicBoolean>("TestPool", () -> new AtomicBoolean(true), o -> disposed.countDown(), 1, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setValidator(AtomicBoolean::get);
+		pool.setValidateOnReturn(true);
+		pool.initialize();
+		
+		AtomicBoolean instance = pool.poll();
+		instance.set(false);
+		pool.release(instance);
+		assertTrue(disposed.await(1, TimeUnit.SECONDS));
+		
+		AtomicBoolean replacement = pool.poll();
+		assertTrue(replacement != instance);
+		assertEquals(1, pool.getInstanceCount());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testBackgroundValidation() throws InterruptedException {
+		
+		List<AtomicBoolean> instances = new LinkedList<>();
+		Pool<AtomicBoolean> pool = new Pool<AtomicBoolean>("TestPool", () -> {
+			AtomicBoolean instance = new AtomicBoolean(true);
+			synchronized (instances) {
+				instances.add(instance);
+			}
+			return instance;
+		}, o -> {}, 3, 1000);
+		ManualScheduler scheduler = new ManualScheduler();
+		pool.setValidator(AtomicBoolean::get);
+		pool.setValidationInterval(10);
+		pool.setValidationBatchSize(1);
+		pool.setScheduledExecutor(scheduler);
+		pool.initialize();
+		
+		synchronized (instances) {
+			instances.forEach(i -> i.set(false));
+		}
+		// every run replaces one invalid instance
+		for (int i = 0; i < 3; i++) {
+			scheduler.runPeriodicTasks();
+		}
+		// the replacements are created in the background and handed to the waiting polls
+		for (int i = 0; i < 3; i++) {
+			assertTrue(pool.poll().get());
+		}
+		synchronized (instances) {
+			assertEquals(6, instances.size());
+		}
+		pool.dispose();
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testParallelWarmUp() throws InvocationTargetException, InterruptedException {
+		
+		CountDownLatch backend = new CountDownLatch(1);
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			try {
+				backend.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new Object();
+		}, o -> {}, 8, 1000);
+		pool.setWarmUpThreads(4);
+		
+		// the initialization does not wait for the instances
+		pool.initialize();
+		assertFalse(pool.getWarmUp().isDone());
+		backend.countDown();
+		
+		// the first instances are served, before the warm-up is finished
+		assertNotNull(pool.poll());
+		assertEquals(8, pool.getWarmUp().getValue().intValue());
+		assertEquals(1.0, pool.getWarmUpProgress(), 0.0);
+		assertEquals(8, pool.getInstanceCount());
+		
+		pool.modifyPoolSize(12);
+		assertEquals(4, pool.getWarmUp().getValue().intValue());
+		assertEquals(12, pool.getInstanceCount());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testThreadCache() throws InvocationTargetException, InterruptedException, ExecutionException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 2, 1000);
+		pool.setThreadCacheEnabled(true);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		Object first = pool.poll();
+		pool.release(first);
+		// the instance stays in the cache of this thread
+		assertEquals(1, pool.getAvailableCount());
+		assertSame(first, pool.poll());
+		pool.release(first);
+		
+		// another thread reclaims the cached instance, when the pool runs dry
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		List<Object> polled = executor.submit(() -> List.of(pool.poll(100), pool.poll(100))).get();
+		assertTrue(polled.contains(first));
+		executor.shutdown();
+		
+		polled.forEach(pool::release);
+		pool.setThreadCacheEnabled(false);
+		assertEquals(2, pool.getAvailableCount());
+		pool.dispose();
+	}
+	
+	@Test
+	public void testThreadCacheReInitialized() throws InterruptedException, ExecutionException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 1, 300);
+		pool.setThreadCacheEnabled(true);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		pool.release(pool.poll());
+		pool.dispose();
+		pool.initialize();
+		
+		// the slot of this thread is still known to the pool after the new initialization
+		Object instance = pool.poll();
+		pool.release(instance);
+		assertEquals(0, pool.getAvailableCount());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Object stolen = executor.submit(() -> pool.poll()).get();
+		assertSame(instance, stolen);
+		executor.shutdown();
+		pool.release(stolen);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testMetrics() throws InvocationTargetException, InterruptedException, IOException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 1, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		PoolMetricsMBean metrics = pool.getMBean();
+		assertEquals("TestPool", metrics.getName());
+		assertEquals(1, metrics.getCreatedCount());
+		
+		Object object = pool.poll();
+		assertEquals(1, metrics.getInUseCount());
+		assertEquals(1.0, metrics.getUtilization(), 0.0);
+		assertThrows(PoolException.class, () -> pool.poll(20));
+		assertEquals(1, metrics.getTimeoutCount());
+		
+		pool.release(object);
+		assertNotNull(pool.poll());
+		assertEquals(2, metrics.getBorrowCount());
+		assertEquals(1, metrics.getReleaseCount());
+		assertEquals(2, LongStream.of(metrics.getWaitTimeHistogram()).sum());
+		assertTrue(metrics.getMaxWaitTime() >= 0.0);
+		assertTrue(metrics.getWaitTime99thPercentile() >= metrics.getWaitTime50thPercentile());
+		
+		metrics.resetStatistics();
+		assertEquals(0, metrics.getBorrowCount());
+		pool.dispose();
+		assertEquals(1, metrics.getDestroyedCount());
+	}
+	
+	@Test
+	public void testPollBatch() throws InvocationTargetException, InterruptedException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 4, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		List<Object> batch = pool.pollBatch(3, 100);
+		assertEquals(3, batch.size());
+		assertEquals(1, pool.getAvailableCount());
+		
+		// all or nothing
+		assertThrows(PoolException.class, () -> pool.pollBatch(2, 20));
+		assertEquals(1, pool.getAvailableCount());
+		assertThrows(IllegalArgumentException.class, () -> pool.pollBatch(5, 20));
+		
+		assertThrows(PoolException.class, () -> pool.releaseAll(List.of(batch.get(0), new Object())));
+		assertEquals(1, pool.getAvailableCount());
+		pool.releaseAll(batch);
+		assertEquals(4, pool.getAvailableCount());
+		assertThrows(PoolException.class, () -> pool.releaseAll(batch));
+		pool.dispose();
+	}
+	
+	@Test
+	public void testConcurrentBatches() throws InvocationTargetException, InterruptedException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 4, 1000);
+		pool.initialize();
+		
+		AtomicInteger failures = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CountDownLatch latch = new CountDownLatch(2);
+		for (int t = 0; t < 2; t++) {
+			executor.execute(() -> {
+				try {
+					for (int i = 0; i < 200; i++) {
+						pool.releaseAll(pool.pollBatch(3, 1000));
+					}
+				} catch (PoolException e) {
+					failures.incrementAndGet();
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(0, failures.get());
+		executor.shutdown();
+		pool.dispose();
+	}
+	
+	@Test
+	public void testPollPriority() throws InvocationTargetException, InterruptedException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 1, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		
+		Object object = pool.poll();
+		Promise<Object> normal = pool.pollAsync(1000, PollPriority.NORMAL);
+		Promise<Object> high = pool.pollAsync(1000, PollPriority.HIGH);
+		assertFalse(high.isDone());
+		
+		// the released instance goes to the most urgent waiter
+		pool.release(object);
+		assertTrue(high.isDone());
+		assertFalse(normal.isDone());
+		assertSame(object, high.getValue());
+		pool.release(object);
+		assertSame(object, normal.getValue());
+		pool.release(object);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testLowPriorityFailsFast() throws InvocationTargetException, InterruptedException {
+		
+		AtomicLong clock = new AtomicLong();
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 1, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setNanoClock(clock::get);
+		pool.initialize();
+		
+		// instances are borrowed for 200 ms
+		Object object = pool.poll();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+		pool.release(object);
+		
+		object = pool.poll();
+		assertThrows(PoolException.class, () -> pool.poll(10, PollPriority.LOW));
+		// the low priority poll fails, before its timeout is scheduled
+		Promise<Object> low = pool.pollAsync(10, PollPriority.LOW);
+		assertTrue(low.isDone());
+		assertTrue(low.getFailure() instanceof PoolException);
+		
+		// others wait for their timeout
+		Promise<Object> normal = pool.pollAsync(10, PollPriority.NORMAL);
+		assertFalse(normal.isDone());
+		assertTrue(normal.getFailure() instanceof PoolException);
+		pool.release(object);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testLeakDetection() throws InvocationTargetException, InterruptedException, IOException {
+		
+		List<Object> disposed = new CopyOnWriteArrayList<Object>();
+		CountDownLatch disposedLatch = new CountDownLatch(1);
+		ManualScheduler scheduler = new ManualScheduler();
+		AtomicLong clock = new AtomicLong();
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {
+			disposed.add(o);
+			disposedLatch.countDown();
+		}, 2, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setMaxLeaseDuration(50);
+		pool.setLeakSampleRate(1);
+		pool.setScheduledExecutor(scheduler);
+		pool.setNanoClock(clock::get);
+		pool.initialize();
+		
+		PooledLease<Object> lease = pool.borrow();
+		Object leaked = lease.get();
+		Object released = pool.poll();
+		pool.release(released);
+		
+		// a lease is not reclaimed, before the maximum lease duration has passed
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(49));
+		scheduler.runPeriodicTasks();
+		assertEquals(0, pool.getMBean().getAbandonedCount());
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		scheduler.runPeriodicTasks();
+		assertEquals(1, pool.getMBean().getAbandonedCount());
+		// the leaked instance is replaced and can't be released anymore
+		assertTrue(disposedLatch.await(5, TimeUnit.SECONDS));
+		assertTrue(disposed.contains(leaked));
+		assertThrows(PoolException.class, () -> pool.release(leaked));
+		assertFalse(lease.isOpen());
+		assertThrows(PoolException.class, lease::close);
+		Object first = pool.poll();
+		Object second = pool.poll();
+		assertNotSame(leaked, first);
+		assertNotSame(leaked, second);
+		assertEquals(2, pool.getInstanceCount());
+		pool.release(first);
+		pool.release(second);
+		pool.dispose();
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testLazyInitialization() throws InterruptedException {
+		
+		AtomicInteger created = new AtomicInteger();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			created.incrementAndGet();
+			return new Object();
+		}, o -> {}, 3, 1000);
+		pool.setInitialization(PoolInitialization.LAZY);
+		pool.initialize();
+		assertEquals(0, created.get());
+		assertEquals(0, pool.getInstanceCount());
+		
+		Object object = pool.poll();
+		assertNotNull(object);
+		assertEquals(1, created.get());
+		pool.release(object);
+		pool.dispose();
+		
+		created.set(0);
+		pool = new Pool<Object>("TestPool", () -> {
+			created.incrementAndGet();
+			return new Object();
+		}, o -> {}, 3, 1000);
+		pool.setInitialization(PoolInitialization.LAZY_PREFILL);
+		pool.initialize();
+		assertEquals(0, created.get());
+		
+		object = pool.poll();
+		assertNotNull(object);
+		// the first borrow started the fill in the background
+		assertEquals(3, pool.getInstanceCount());
+		Object second = pool.poll();
+		Object third = pool.poll();
+		assertEquals(3, created.get());
+		pool.release(object);
+		pool.release(second);
+		pool.release(third);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testResize() throws InterruptedException, InvocationTargetException {
+		
+		CountDownLatch disposed = new CountDownLatch(3);
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> disposed.countDown(), 2, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		assertEquals(2, pool.getAvailableCount());
+		
+		// growing fills the pool in the background
+		assertEquals(3, pool.resize(5).getValue().intValue());
+		assertEquals(5, pool.getPoolSize());
+		assertEquals(5, pool.getInstanceCount());
+		assertEquals(5, pool.getAvailableCount());
+		
+		// shrinking disposes idle instances right away and borrowed ones on release
+		Object first = pool.poll();
+		Object second = pool.poll();
+		pool.resize(1);
+		assertTrue(disposed.await(5, TimeUnit.SECONDS));
+		assertEquals(2, pool.getInstanceCount());
+		pool.release(first);
+		pool.release(second);
+		assertEquals(1, pool.getInstanceCount());
+		assertEquals(1, pool.getAvailableCount());
+		
+		pool.setPollTimeout(50);
+		assertEquals(50, pool.getPollTimeout());
+		Object last = pool.poll();
+		assertThrows(PoolException.class, pool::poll);
+		pool.release(last);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testSizeController() throws InterruptedException, InvocationTargetException, IOException {
+		
+		PoolSizeController rule = new PoolSizeController(2, 8, 5);
+		// grows additive on timeouts, waiting borrowers or long waits
+		assertEquals(5, rule.computeSize(4, 4, 0, 10, 0, 1));
+		assertEquals(5, rule.computeSize(4, 4, 1, 10, 0, 0));
+		assertEquals(5, rule.computeSize(4, 4, 0, 10, 10 * 6_000_000L, 0));
+		assertEquals(8, rule.computeSize(8, 8, 3, 10, 0, 3));
+		// shrinks multiplicative on low utilization
+		assertEquals(6, rule.computeSize(8, 1, 0, 10, 0, 0));
+		assertEquals(2, rule.computeSize(2, 0, 0, 0, 0, 0));
+		assertEquals(4, rule.computeSize(4, 3, 0, 10, 0, 0));
+		
+		ManualScheduler scheduler = new ManualScheduler();
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 1, 20);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		PoolSizeController controller = new PoolSizeController(1, 3, 1);
+		controller.setInterval(20);
+		pool.setSizeController(controller);
+		pool.setScheduledExecutor(scheduler);
+		pool.initialize();
+		
+		// a timed out borrower makes the pool grow
+		Object borrowed = pool.poll();
+		assertThrows(PoolException.class, pool::poll);
+		scheduler.runPeriodicTasks();
+		assertEquals(2, pool.getPoolSize());
+		assertEquals(1, pool.getMBean().getSizeIncreaseCount());
+		assertEquals(1, pool.getWarmUp().getValue().intValue());
+		
+		// an idle pool shrinks
+		pool.release(borrowed);
+		scheduler.runPeriodicTasks();
+		assertEquals(1, pool.getPoolSize());
+		assertEquals(1, pool.getMBean().getSizeDecreaseCount());
+		pool.dispose();
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testSelectionStrategy() {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 3, 100);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		Object first = pool.poll();
+		Object second = pool.poll();
+		pool.release(first);
+		pool.release(second);
+		// FIFO hands out the instance, that is idle the longest
+		assertNotSame(second, pool.poll());
+		pool.dispose();
+		
+		pool.setSelectionStrategy(SelectionStrategy.LIFO);
+		pool.initialize();
+		first = pool.poll();
+		second = pool.poll();
+		pool.release(first);
+		pool.release(second);
+		// LIFO hands out the hot instance again
+		assertSame(second, pool.poll());
+		pool.release(second);
+		assertSame(second, pool.poll());
+		pool.release(second);
+		pool.dispose();
+		
+		pool.setSelectionStrategy(SelectionStrategy.LEAST_USED);
+		pool.initialize();
+		first = pool.poll();
+		pool.release(first);
+		// the least used instances are handed out first
+		second = pool.poll();
+		assertNotSame(first, second);
+		pool.release(second);
+		Object third = pool.poll();
+		assertNotSame(first, third);
+		assertNotSame(second, third);
+		pool.release(third);
+		List<Integer> useCounts = pool.getInstanceStatistics().stream().map(InstanceStatistics::getUseCount).collect(Collectors.toList());
+		assertEquals(List.of(1, 1, 1), useCounts);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testMaxUses() throws IOException {
+		
+		List<Object> disposed = new CopyOnWriteArrayList<Object>();
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, disposed::add, 1, 100);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setMaxUses(2);
+		pool.initialize();
+		
+		Object object = pool.poll();
+		pool.release(object);
+		assertSame(object, pool.poll());
+		assertEquals(2, pool.getInstanceStatistics().get(0).getUseCount());
+		assertTrue(pool.getInstanceStatistics().get(0).isInUse());
+		pool.release(object);
+		
+		// the worn out instance is replaced
+		Object replacement = pool.poll();
+		assertNotSame(object, replacement);
+		assertEquals(1, pool.getMBean().getRetiredCount());
+		assertEquals(1, pool.getInstanceCount());
+		pool.release(replacement);
+		pool.dispose();
+		assertTrue(disposed.contains(object));
+	}
+	
+	@Test
+	public void testVirtualThreads() {
+		
+		List<Object> disposed = new CopyOnWriteArrayList<Object>();
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, disposed::add, 2, 100);
+		// falls back to platform threads on JVMs without virtual threads
+		pool.setVirtualThreads(true);
+		pool.setMaxUses(1);
+		pool.initialize();
+		Object object = pool.poll();
+		pool.release(object);
+		Object replacement = pool.poll();
+		assertNotSame(object, replacement);
+		pool.release(replacement);
+		pool.dispose();
+		assertTrue(disposed.contains(object));
+		ExecutorService executor = ExecutorHelper.newVirtualThreadExecutor("test");
+		assertEquals(ExecutorHelper.isVirtualThreadSupported(), executor != null);
+		ExecutorHelper.shutdownExecutorServiceWithAwait(executor, 100);
+	}
+	
+	@Test
+	public void testSnapshot() throws IOException {
+		
+		Path file = Files.createTempFile("pool", ".snapshot");
+		Files.delete(file);
+		List<String> discarded = new CopyOnWriteArrayList<String>();
+		PoolSnapshotCodec<String> codec = new PoolSnapshotCodec<String>() {
+			
+			@Override
+			public ByteBuffer encode(String instance) {
+				return ByteBuffer.wrap(instance.getBytes(StandardCharsets.UTF_8));
+			}
+			
+			@Override
+			public String decode(ByteBuffer state) {
+				return StandardCharsets.UTF_8.decode(state).toString();
+			}
+			
+			@Override
+			public void discard(String instance) {
+				discarded.add(instance);
+			}
+		};
+		try {
+			AtomicInteger created = new AtomicInteger();
+			List<String> released = new CopyOnWriteArrayList<String>();
+			Pool<String> pool = new Pool<String>("TestPool", () -> "instance-" + created.incrementAndGet(), released::add, 3, 100);
+			pool.setReleaseMode(ReleaseMode.INLINE);
+			pool.setSnapshot(file, codec);
+			pool.initialize();
+			assertEquals(3, created.get());
+			String borrowed = pool.poll();
+			pool.dispose();
+			assertTrue(Files.exists(file));
+			released.clear();
+			
+			// the available instances are restored, the rest comes from the supplier
+			pool.initialize();
+			assertEquals(4, created.get());
+			assertEquals(3, pool.getInstanceCount());
+			List<String> instances = new LinkedList<String>();
+			for (int i = 0; i < 3; i++) {
+				instances.add(pool.poll());
+			}
+			assertTrue(instances.containsAll(List.of("instance-1", "instance-2", "instance-3", "instance-4").stream()
+					.filter(instance -> !instance.equals(borrowed)).collect(Collectors.toList())));
+			instances.forEach(pool::release);
+			pool.dispose();
+			// restored instances never came from the supplier, so they are discarded by the codec
+			assertEquals(List.of("instance-4"), released);
+			assertEquals(2, discarded.size());
+			assertFalse(discarded.contains("instance-4"));
+			
+			// a broken snapshot falls back to the supplier
+			Files.write(file, new byte[] {1, 2, 3});
+			pool.initialize();
+			assertEquals(7, created.get());
+			pool.dispose();
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void testCircuitBreaker() throws InterruptedException, IOException {
+		
+		AtomicBoolean failing = new AtomicBoolean(true);
+		AtomicLong clock = new AtomicLong();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			if (failing.get()) {
+				throw new IllegalStateException("backend down");
+			}
+			return new Object();
+		}, o -> {}, 2, 1000);
+		pool.setCircuitBreaker(2, 50, 200);
+		pool.setNanoClock(clock::get);
+		// the failing supplier does not break the initialization
+		pool.initialize();
+		assertEquals(0, pool.getInstanceCount());
+		assertThrows(IllegalStateException.class, pool::poll);
+		assertTrue(pool.isCircuitOpen());
+		assertEquals(1, pool.getMBean().getCircuitOpenCount());
+		
+		// borrowers fail fast, while the circuit is open
+		assertThrows(PoolException.class, pool::poll);
+		Promise<Object> failed = pool.pollAsync();
+		assertTrue(failed.isDone());
+		assertTrue(failed.getFailure() instanceof PoolException);
+		
+		// a successful probe closes the circuit, once the backoff has passed
+		failing.set(false);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(49));
+		assertTrue(pool.isCircuitOpen());
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		assertFalse(pool.isCircuitOpen());
+		Object object = pool.poll();
+		assertNotNull(object);
+		assertFalse(pool.getMBean().isCircuitOpen());
+		pool.release(object);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testCircuitBreakerProbeError() throws IOException {
+		
+		AtomicInteger attempts = new AtomicInteger();
+		AtomicLong clock = new AtomicLong();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			int attempt = attempts.incrementAndGet();
+			if (attempt == 1) {
+				throw new IllegalStateException("backend down");
+			}
+			if (attempt == 2) {
+				throw new ExceptionInInitializerError("backend broken");
+			}
+			return new Object();
+		}, o -> {}, 1, 100);
+		pool.setInitialization(PoolInitialization.LAZY);
+		pool.setCircuitBreaker(1, 20, 40);
+		pool.setNanoClock(clock::get);
+		pool.initialize();
+		assertThrows(IllegalStateException.class, pool::poll);
+		assertTrue(pool.isCircuitOpen());
+		
+		// the failed probe opens the circuit again, instead of leaving it half open
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThrows(ExceptionInInitializerError.class, pool::poll);
+		assertTrue(pool.isCircuitOpen());
+		assertEquals(2, pool.getMBean().getCircuitOpenCount());
+		
+		// the next probe after the doubled backoff closes it
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(39));
+		assertTrue(pool.isCircuitOpen());
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		Object object = pool.poll();
+		assertNotNull(object);
+		assertFalse(pool.isCircuitOpen());
+		pool.release(object);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testCircuitBreakerHalfOpen() throws Exception {
+		
+		AtomicInteger attempts = new AtomicInteger();
+		Semaphore probing = new Semaphore(0);
+		SynchronousQueue<Object> outcomes = new SynchronousQueue<Object>();
+		AtomicLong clock = new AtomicLong();
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("backend down");
+			}
+			// the probe blocks, until the test decides its outcome
+			probing.release();
+			try {
+				Object outcome = outcomes.take();
+				if (outcome instanceof RuntimeException) {
+					throw (RuntimeException) outcome;
+				}
+				return outcome;
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}, o -> {}, 2, 60000);
+		// holds the next borrower after it has seen the circuit ready for a probe, until the probe runs
+		AtomicBoolean gateArmed = new AtomicBoolean();
+		Semaphore gateReached = new Semaphore(0);
+		Semaphore gateOpen = new Semaphore(0);
+		pool.setCapacity(new PoolCapacity() {
+			
+			@Override
+			public boolean acquire(Pool<?> p) {
+				if (gateArmed.compareAndSet(true, false)) {
+					gateReached.release();
+					gateOpen.acquireUninterruptibly();
+				}
+				return true;
+			}
+			
+			@Override
+			public void release(Pool<?> p, int count) {
+			}
+			
+			@Override
+			public boolean isContended(Pool<?> p) {
+				return false;
+			}
+			
+			@Override
+			public void waiting(int delta) {
+			}
+		});
+		pool.setInitialization(PoolInitialization.LAZY);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.setCircuitBreaker(1, 20, 40);
+		pool.setNanoClock(clock::get);
+		pool.initialize();
+		assertThrows(IllegalStateException.class, pool::poll);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		
+		// a borrower, that comes along during a failing probe, fails with the probe
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+		Future<Object> waiting = startBesideProbe(pool, executor, gateArmed, gateReached, gateOpen);
+		Future<Object> probe = executor.submit(() -> pool.poll());
+		assertTrue(probing.tryAcquire(5, TimeUnit.SECONDS));
+		gateOpen.release();
+		awaitWaiting(pool, 1);
+		assertFalse(waiting.isDone());
+		outcomes.put(new IllegalStateException("still down"));
+		assertEquals(IllegalStateException.class, assertThrows(ExecutionException.class, () -> probe.get(5, TimeUnit.SECONDS)).getCause().getClass());
+		assertEquals(PoolException.class, assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS)).getCause().getClass());
+		assertTrue(pool.isCircuitOpen());
+		
+		// a borrower, that comes along during a successful probe, gets its own instance
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+		Future<Object> served = startBesideProbe(pool, executor, gateArmed, gateReached, gateOpen);
+		Future<Object> successfulProbe = executor.submit(() -> pool.poll());
+		assertTrue(probing.tryAcquire(5, TimeUnit.SECONDS));
+		gateOpen.release();
+		awaitWaiting(pool, 1);
+		assertFalse(served.isDone());
+		Object probed = new Object();
+		outcomes.put(probed);
+		assertSame(probed, successfulProbe.get(5, TimeUnit.SECONDS));
+		assertTrue(probing.tryAcquire(5, TimeUnit.SECONDS));
+		Object created = new Object();
+		outcomes.put(created);
+		assertSame(created, served.get(5, TimeUnit.SECONDS));
+		assertFalse(pool.isCircuitOpen());
+		assertEquals(2, pool.getInstanceCount());
+		executor.shutdown();
+		pool.release(probed);
+		pool.release(created);
+		pool.dispose();
+	}
+	
+	private Future<Object> startBesideProbe(Pool<Object> pool, ExecutorService executor, AtomicBoolean gateArmed, Semaphore gateReached, Semaphore gateOpen) throws InterruptedException {
+		gateArmed.set(true);
+		Future<Object> borrower = executor.submit(() -> pool.poll());
+		assertTrue(gateReached.tryAcquire(5, TimeUnit.SECONDS));
+		return borrower;
+	}
+	
+	private void awaitWaiting(Pool<Object> pool, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (pool.getWaitingCount() < count) {
+			assertTrue(System.nanoTime() < deadline);
+			Thread.sleep(1);
+		}
+	}
+	
+	@Test
+	public void testSupplierError() {
+		
+		AtomicBoolean failing = new AtomicBoolean(true);
+		Pool<Object> pool = new Pool<Object>("TestPool", () -> {
+			if (failing.get()) {
+				throw new NoClassDefFoundError("backend");
+			}
+			return new Object();
+		}, o -> {}, 1, 100);
+		pool.setInitialization(PoolInitialization.LAZY);
+		pool.initialize();
+		assertThrows(NoClassDefFoundError.class, pool::poll);
+		assertEquals(0, pool.getInstanceCount());
+		
+		// the reservation was given back, so the next poll creates the instance
+		failing.set(false);
+		Object instance = pool.poll();
+		assertNotNull(instance);
+		pool.release(instance);
+		pool.dispose();
+	}
+	
+	@Test
+	public void testSharedScheduler() {
+		
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+		scheduler.setRemoveOnCancelPolicy(true);
+		Pool<Object> first = new Pool<Object>("First", Object::new, o -> {}, 2, 100);
+		first.setMinIdle(1);
+		first.setScheduledExecutor(scheduler);
+		first.initialize();
+		Pool<Object> second = new Pool<Object>("Second", Object::new, o -> {}, 2, 100);
+		second.setMinIdle(1);
+		second.setScheduledExecutor(scheduler);
+		second.initialize();
+		// both pools schedule their maintenance on the shared scheduler
+		assertEquals(2, scheduler.getQueue().size());
+		first.dispose();
+		second.dispose();
+		assertFalse(scheduler.isShutdown());
+		assertEquals(0, scheduler.getQueue().size());
+		scheduler.shutdown();
+		
+		// a pool without background tasks does not create its own scheduler
+		Pool<Object> plain = new Pool<Object>("Plain", Object::new, o -> {}, 1, 100);
+		plain.initialize();
+		assertTrue(Thread.getAllStackTraces().keySet().stream().noneMatch(t -> t.getName().startsWith("Pool-Plain-scheduler")));
+		plain.dispose();
+	}
+	
+	@Test
+	public void testLargePool() throws InterruptedException, InvocationTargetException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 20000, 1000);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		assertEquals(20000, pool.getInstanceCount());
+		
+		List<Object> instances = new LinkedList<>();
+		for (int i = 0; i < 20000; i++) {
+			instances.add(pool.poll());
+		}
+		// every instance is found again on release
+		instances.forEach(pool::release);
+		assertEquals(20000, pool.getAvailableCount());
+		
+		// shrinking removes the entries of the disposed instances
+		pool.resize(10);
+		assertEquals(10, pool.getInstanceCount());
+		Object instance = pool.poll();
+		pool.release(instance);
+		Object stale = instances.stream().filter(o -> o != instance).findFirst().get();
+		assertThrows(PoolException.class, () -> pool.release(stale));
+		pool.dispose();
+	}
+	
+	@Test
+	public void testPoolExecutor() throws InterruptedException, InvocationTargetException {
+		
+		AtomicInteger counter = new AtomicInteger();
+		Pool<Integer> pool = new Pool<Integer>("TestPool", counter::incrementAndGet, o -> {}, 2, 1000);
+		pool.initialize();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		PoolExecutor<Integer> poolExecutor = new PoolExecutor<Integer>(pool, executor);
+		
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<Promise<Integer>> results = new LinkedList<>();
+		for (int i = 0; i < 20; i++) {
+			results.add(poolExecutor.submit(instance -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				return instance;
+			}));
+		}
+		for (Promise<Integer> result : results) {
+			int instance = result.getValue().intValue();
+			assertTrue(instance == 1 || instance == 2);
+		}
+		// the number of running tasks is bound by the pool size
+		assertTrue(maxRunning.get() <= 2);
+		assertEquals(2, pool.getInstanceCount());
+		
+		// a failing task returns its instance
+		Promise<Object> failed = poolExecutor.submit(instance -> {
+			throw new IllegalStateException("task failed");
+		});
+		assertTrue(failed.getFailure() instanceof IllegalStateException);
+		
+		// a task waiting too long for an instance fails with a PoolException
+		Integer instance1 = pool.poll();
+		Integer instance2 = pool.poll();
+		assertNotNull(instance1);
+		assertNotNull(instance2);
+		poolExecutor.setQueueTimeout(10);
+		Promise<Void> timedOut = poolExecutor.execute(instance -> {});
+		assertTrue(timedOut.getFailure() instanceof PoolException);
+		pool.release(instance1);
+		pool.release(instance2);
+		
+		pool.dispose();
+		executor.shutdown();
+	}
+	
+	@Test
+	public void testPoolExecutorQueueing() throws InterruptedException, InvocationTargetException {
+		
+		AtomicInteger counter = new AtomicInteger();
+		// the poll timeout of the pool is much shorter than the tasks hold their instances
+		Pool<Integer> pool = new Pool<Integer>("TestPool", counter::incrementAndGet, o -> {}, 2, 10);
+		pool.initialize();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		PoolExecutor<Integer> poolExecutor = new PoolExecutor<Integer>(pool, executor);
+		
+		List<Promise<Integer>> results = new LinkedList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(poolExecutor.submit(instance -> {
+				try {
+					Thread.sleep(25);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return instance;
+			}));
+		}
+		// all tasks are queued until an instance is free, instead of failing after the poll timeout
+		for (Promise<Integer> result : results) {
+			int instance = result.getValue().intValue();
+			assertTrue(instance == 1 || instance == 2);
+		}
+		assertEquals(2, pool.getInstanceCount());
+		
+		pool.dispose();
+		executor.shutdown();
+	}
+	
+	@Test
+	public void testPoolExecutorCompetingPolls() throws InterruptedException, InvocationTargetException {
+		
+		Pool<Object> pool = new Pool<Object>("TestPool", Object::new, o -> {}, 1, 100);
+		pool.setReleaseMode(ReleaseMode.INLINE);
+		pool.initialize();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		PoolExecutor<Object> poolExecutor = new PoolExecutor<Object>(pool, executor);
+		CountDownLatch served = new CountDownLatch(1);
+		
+		// the task queues first, the polls arrive later with a timeout shorter than the queue timeout of the task
+		Object instance = pool.poll();
+		Promise<Void> task = poolExecutor.execute(object -> served.countDown());
+		Promise<Object> first = pool.pollAsync(10000);
+		Promise<Object> second = pool.pollAsync(10000);
+		assertEquals(3, pool.getWaitingCount());
+		
+		// the long queue timeout of the task does not put it behind the later polls
+		pool.release(instance);
+		assertTrue(served.await(5, TimeUnit.SECONDS));
+		assertNull(task.getFailure());
+		Object polled = first.getValue();
+		assertFalse(second.isDone());
+		pool.release(polled);
+		pool.release(second.getValue());
+		
+		pool.dispose();
+		executor.shutdown();
+	}
+	
+	/**
+	 * Scheduler, that does not run periodic tasks on its own. The test runs them with {@link #runPeriodicTasks()}, 
+	 * so background work of the pool happens at defined points of the test. One shot tasks, like poll timeouts, run as usual.
+	 */
+	private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+		
+		private final Map<Runnable, ScheduledFuture<?>> periodicTasks = new ConcurrentHashMap<Runnable, ScheduledFuture<?>>();
+		
+		ManualScheduler() {
+			super(1);
+			setRemoveOnCancelPolicy(true);
+		}
+		
+		/* 
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.ScheduledThreadPoolExecutor#scheduleWithFixedDelay(java.lang.Runnable, long, long, java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+			// a placeholder, that never runs, so the pool can cancel its task as usual
+			ScheduledFuture<?> placeholder = schedule(() -> {}, 1, TimeUnit.DAYS);
+			periodicTasks.put(command, placeholder);
+			return placeholder;
+		}
+		
+		/**
+		 * Runs all periodic tasks, that are not cancelled, once on the calling thread
+		 */
+		void runPeriodicTasks() {
+			periodicTasks.forEach((command, placeholder) -> {
+				if (!placeholder.isCancelled()) {
+					command.run();
+				}
+			});
+		}
+		
+	}
+	
 }